@@ -0,0 +1,44 @@
+package battleship.tiles;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The density kernel built on the Java Vector API (jdk.incubator.vector): each run of ints is
+ * worked on as many at once as the processor's vectors hold, and the few ints left over at its
+ * end one at a time. This class is only loaded through DensityKernel.create(), so that
+ * everything else still runs without the module, and it lives outside src, so that everything
+ * else also compiles without it.
+ */
+class VectorDensityKernel extends DensityKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    protected void addWindowsAcrossLines(int[] open, int lines, int lineLength, int length,
+            int[] coverage) {
+        int span = (lines - length + 1) * lineLength;
+        int vectorSpan = SPECIES.loopBound(span);
+        for (int j = 0; j < vectorSpan; j += SPECIES.length()) {
+            IntVector window = IntVector.fromArray(SPECIES, open, j);
+            for (int k = 1; k < length; k++)
+                window = window.and(IntVector.fromArray(SPECIES, open, j + k * lineLength));
+            window.intoArray(windows, j);
+        }
+        for (int j = vectorSpan; j < span; j++) {
+            int window = open[j];
+            for (int k = 1; k < length; k++)
+                window &= open[j + k * lineLength];
+            windows[j] = window;
+        }
+        for (int k = 0; k < length; k++) {
+            int shift = k * lineLength;
+            for (int j = 0; j < vectorSpan; j += SPECIES.length())
+                IntVector.fromArray(SPECIES, coverage, j + shift)
+                        .add(IntVector.fromArray(SPECIES, windows, j))
+                        .intoArray(coverage, j + shift);
+            for (int j = vectorSpan; j < span; j++)
+                coverage[j + shift] += windows[j];
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package battleship.handling;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import battleship.tiles.PlacementTable;
+import battleship.tiles.SequentialFleetSampler;
+import battleship.tiles.ShotResult;
+import battleship.utilities.BitBoard;
+
+/**
+ * A batch environment holds many independent games at once and advances all of them with a
+ * single call to step(), e.g. for self-play. Instead of a Player and Fleet object graph per
+ * game, the state of every game lives in a few flat arrays, one slice per game or per fleet,
+ * so stepping a whole batch walks through memory in order.
+ *
+ * Each game has two fleets, numbered 0 and 1, laid out with the ships from the Settings the
+ * same way players place theirs at random (see Player.placeShipsRandomly()); fleet number f of
+ * game g is board number 2 * g + f. Every game is started when the environment is created. Player 0 fires first. The rules are
+ * those of Fleet.receiveFireAtCoordinates: a shot at a cell that has been fired upon before
+ * changes nothing (REPEATED), a shot at a ship's last intact cell sinks it (SUNK), and a game
+ * is won as soon as the other fleet has no ship afloat. A game that reaches
+ * Settings.MAXIMUM_PLAYABLE_TURNS is a draw.
+ *
+ * An environment is not safe to share between threads; use one per thread instead.
+ */
+public class BatchEnvironment {
+
+    /**
+     * The outcome reported for games that were already over before a call to step().
+     */
+    public static final byte    NO_SHOT         = -1;
+
+    public static final byte    GAME_RUNNING    = -1;
+    public static final byte    DRAW            = 2;
+
+    private final int           games;
+    private final int           boards;
+    private final int[]         shipLengths;
+    private final int           shipCount;
+    private final SequentialFleetSampler sampler;
+    private final int[]         placements;
+
+    // Per board (fleet)
+    private final byte[]        shipIndexAtCell;
+    private final long[]        firedUpon;
+    private final long[]        hits;
+    private final byte[]        shipStrengths;
+    private final int[]         shipsAfloat;
+
+    // Per game
+    private final byte[]        playerToMove;
+    private final int[]         shotsFired;
+    private final byte[]        winner;
+
+    /**
+     * Creates the games and starts them, with fleets from a fresh, unpredictable generator.
+     */
+    public BatchEnvironment(int games) {
+        this(games, new SplittableRandom());
+    }
+
+    /**
+     * Creates the games and starts them, with fleets drawn from the given generator.
+     */
+    public BatchEnvironment(int games, SplittableRandom random) {
+        this.games = games;
+        this.boards = 2 * games;
+        this.shipLengths = defaultShipLengths();
+        this.shipCount = shipLengths.length;
+        this.sampler = new SequentialFleetSampler(shipLengths);
+        this.placements = new int[shipCount];
+
+        this.shipIndexAtCell = new byte[boards * BitBoard.CELLS];
+        this.firedUpon = new long[boards * BitBoard.WORDS];
+        this.hits = new long[boards * BitBoard.WORDS];
+        this.shipStrengths = new byte[boards * shipCount];
+        this.shipsAfloat = new int[boards];
+
+        this.playerToMove = new byte[games];
+        this.shotsFired = new int[games];
+        this.winner = new byte[games];
+        resetAll(random);
+    }
+
+    private static int[] defaultShipLengths() {
+        int[] counts = { Settings.ONE_TILE_SHIPS, Settings.TWO_TILE_SHIPS, Settings.THREE_TILE_SHIPS,
+                Settings.FOUR_TILE_SHIPS, Settings.FIVE_TILE_SHIPS };
+        int total = 0;
+        for (int count : counts)
+            total += count;
+        int[] lengths = new int[total];
+        int ship = 0;
+        for (int length = counts.length; length >= 1; length--)
+            for (int i = 0; i < counts[length - 1]; i++)
+                lengths[ship++] = length;
+        return lengths;
+    }
+
+    public int games() {
+        return games;
+    }
+
+    /**
+     * Starts every game anew, with freshly sampled fleets.
+     */
+    public void resetAll(SplittableRandom random) {
+        for (int game = 0; game < games; game++)
+            reset(game, random);
+    }
+
+    /**
+     * Starts the given game anew, with freshly sampled fleets.
+     */
+    public void reset(int game, SplittableRandom random) {
+        for (int fleet = 0; fleet < 2; fleet++) {
+            int board = 2 * game + fleet;
+            Arrays.fill(shipIndexAtCell, board * BitBoard.CELLS, (board + 1) * BitBoard.CELLS, (byte) -1);
+            Arrays.fill(firedUpon, board * BitBoard.WORDS, (board + 1) * BitBoard.WORDS, 0L);
+            Arrays.fill(hits, board * BitBoard.WORDS, (board + 1) * BitBoard.WORDS, 0L);
+            sampler.sampleNearlyUniform(random, placements, Settings.FLEET_LAYOUTS_PER_PLACEMENT);
+            for (int ship = 0; ship < shipCount; ship++) {
+                PlacementTable table = PlacementTable.forShipLength(shipLengths[ship]);
+                for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+                    if (table.covers(placements[ship], cellIndex))
+                        shipIndexAtCell[board * BitBoard.CELLS + cellIndex] = (byte) ship;
+                shipStrengths[board * shipCount + ship] = (byte) shipLengths[ship];
+            }
+            shipsAfloat[board] = shipCount;
+        }
+        playerToMove[game] = 0;
+        shotsFired[game] = 0;
+        winner[game] = GAME_RUNNING;
+    }
+
+    /**
+     * Lets the player to move in every running game fire one shot.
+     * @param cellIndices for each game, the cell (see BitBoard) its player to move fires at;
+     * ignored for games that are over.
+     * @param outcomes receives, for each game, the ordinal of the shot's ShotResult, or NO_SHOT.
+     */
+    public void step(int[] cellIndices, byte[] outcomes) {
+        for (int game = 0; game < games; game++) {
+            if (winner[game] != GAME_RUNNING) {
+                outcomes[game] = NO_SHOT;
+                continue;
+            }
+            int cellIndex = cellIndices[game];
+            if (cellIndex < 0 || cellIndex >= BitBoard.CELLS)
+                throw new ArrayIndexOutOfBoundsException("Invalid cell index " + cellIndex + " in game " + game + ".");
+            int attacker = playerToMove[game];
+            int board = 2 * game + 1 - attacker;
+            outcomes[game] = (byte) shoot(board, cellIndex).ordinal();
+
+            if (shipsAfloat[board] == 0)
+                winner[game] = (byte) attacker;
+            else if (++shotsFired[game] >= 2 * Settings.MAXIMUM_PLAYABLE_TURNS)
+                winner[game] = DRAW;
+            playerToMove[game] = (byte) (1 - attacker);
+        }
+    }
+
+    private ShotResult shoot(int board, int cellIndex) {
+        int word = board * BitBoard.WORDS + (cellIndex >>> 6);
+        long bit = 1L << cellIndex;
+        if ((firedUpon[word] & bit) != 0)
+            return ShotResult.REPEATED;
+        firedUpon[word] |= bit;
+        int ship = shipIndexAtCell[board * BitBoard.CELLS + cellIndex];
+        if (ship < 0)
+            return ShotResult.MISS;
+        hits[word] |= bit;
+        if (--shipStrengths[board * shipCount + ship] > 0)
+            return ShotResult.HIT;
+        shipsAfloat[board]--;
+        return ShotResult.SUNK;
+    }
+
+    public boolean isOver(int game) {
+        return winner[game] != GAME_RUNNING;
+    }
+
+    /**
+     * @return the number of the winning player, DRAW, or GAME_RUNNING.
+     */
+    public int winner(int game) {
+        return winner[game];
+    }
+
+    public int playerToMove(int game) {
+        return playerToMove[game];
+    }
+
+    /**
+     * @return how many cells of the given player's fleet are still intact.
+     */
+    public int strength(int game, int player) {
+        int board = 2 * game + player;
+        int strength = 0;
+        for (int ship = 0; ship < shipCount; ship++)
+            strength += shipStrengths[board * shipCount + ship];
+        return strength;
+    }
+
+    /**
+     * Copies what the player's opponent can see of the player's fleet: the cells fired upon,
+     * and which of them were hits.
+     */
+    public void copyObservationsOf(int game, int player, long[] firedUponTarget, long[] hitsTarget) {
+        int offset = (2 * game + player) * BitBoard.WORDS;
+        System.arraycopy(firedUpon, offset, firedUponTarget, 0, BitBoard.WORDS);
+        System.arraycopy(hits, offset, hitsTarget, 0, BitBoard.WORDS);
+    }
+
+    public boolean hasBeenFiredUpon(int game, int player, int cellIndex) {
+        int offset = (2 * game + player) * BitBoard.WORDS;
+        return (firedUpon[offset + (cellIndex >>> 6)] & (1L << cellIndex)) != 0;
+    }
+}
@@ -0,0 +1,138 @@
+package battleship.handling;
+
+import java.util.Locale;
+
+import battleship.players.PlayerRegistry;
+
+/**
+ * A headless entry point for unattended tournaments: everything is given as arguments,
+ * nothing is read from the console, no boards are drawn, and only a summary is printed
+ * once all rounds are over. For example:
+ *
+ * java battleship.handling.BatchSimulation --player1 TheBlackPearl --player2 ComputerOpponent
+ *      --rounds 100000 --threads 8 --seed 42 --format csv
+ *
+ * With --simultaneous true, both players choose their shots at the same time in every turn.
+ * With --salvo, each player fires the given number of shots per turn, or one per ship afloat
+ * for --salvo ships.
+ *
+ * Players are looked up in the PlayerRegistry, by their registered type name or by class name;
+ * class names without a package are looked up in battleship.players.
+ */
+public class BatchSimulation {
+
+    private static final String USAGE = "Usage: BatchSimulation --player1 <type> --player2 <type> "
+            + "[--name1 <name>] [--name2 <name>] [--rounds <n>] [--threads <n>] [--seed <n>] [--format text|csv|json] [--simultaneous true|false] [--salvo <n>|ships]";
+
+    private String  playerOneClass;
+    private String  playerTwoClass;
+    private String  playerOneName   = "The Spanish Armada";
+    private String  playerTwoName   = "Perfidious Albion";
+    private int     rounds          = 100;
+    private int     threads         = Runtime.getRuntime().availableProcessors();
+    private long    seed            = System.nanoTime();
+    private String  format          = "text";
+    private boolean simultaneousTurns = false;
+    private int     shotsPerTurn    = 1;
+
+    public static void main(String[] arguments) throws Exception {
+        BatchSimulation simulation = new BatchSimulation();
+        simulation.readArguments(arguments);
+        simulation.run();
+    }
+
+    private void readArguments(String[] arguments) throws Exception {
+        for (int i = 0; i < arguments.length; i += 2) {
+            if (i + 1 >= arguments.length)
+                throw new Exception("Missing value for " + arguments[i] + ". " + USAGE);
+            String option = arguments[i];
+            String value = arguments[i + 1];
+            if (option.equals("--player1"))
+                playerOneClass = value;
+            else if (option.equals("--player2"))
+                playerTwoClass = value;
+            else if (option.equals("--name1"))
+                playerOneName = value;
+            else if (option.equals("--name2"))
+                playerTwoName = value;
+            else if (option.equals("--rounds"))
+                rounds = Integer.parseInt(value);
+            else if (option.equals("--threads"))
+                threads = Integer.parseInt(value);
+            else if (option.equals("--seed"))
+                seed = Long.parseLong(value);
+            else if (option.equals("--format"))
+                format = value;
+            else if (option.equals("--simultaneous"))
+                simultaneousTurns = Boolean.parseBoolean(value);
+            else if (option.equals("--salvo"))
+                shotsPerTurn = readShotsPerTurn(value);
+            else
+                throw new Exception("Unknown option " + option + ". " + USAGE);
+        }
+        if (playerOneClass == null || playerTwoClass == null)
+            throw new Exception("Both players must be given. " + USAGE);
+        if (rounds < 0 || threads < 1)
+            throw new Exception("There must be at least zero rounds and one thread. " + USAGE);
+        if (!format.equals("text") && !format.equals("csv") && !format.equals("json"))
+            throw new Exception("Unknown format " + format + ". " + USAGE);
+    }
+
+    private static int readShotsPerTurn(String value) throws Exception {
+        if (value.equals("ships"))
+            return Settings.ONE_SHOT_PER_SURVIVING_SHIP;
+        int shots = Integer.parseInt(value);
+        if (shots < 1)
+            throw new Exception("A salvo needs at least one shot. " + USAGE);
+        return shots;
+    }
+
+    private void run() throws Exception {
+        Tournament tournament = new Tournament(PlayerRegistry.factoryFor(playerOneClass), playerOneName,
+                PlayerRegistry.factoryFor(playerTwoClass), playerTwoName, seed);
+        tournament.setSimultaneousTurns(simultaneousTurns);
+        tournament.setShotsPerTurn(shotsPerTurn);
+
+        long start = System.nanoTime();
+        tournament.run(rounds, threads);
+        long milliseconds = (System.nanoTime() - start) / 1000000;
+
+        printSummary(tournament.getStatistics(), milliseconds);
+    }
+
+    private void printSummary(TournamentStatistics statistics, long milliseconds) {
+        if (format.equals("csv")) {
+            System.out.println("player1,player2,rounds,cancelled,victories1,victories2,shots1,shots2,hits1,hits2,threads,seed,milliseconds");
+            System.out.println(csvField(statistics.getName(0)) + "," + csvField(statistics.getName(1)) + ","
+                    + statistics.getRoundsPlayed() + "," + statistics.getRoundsCancelled() + ","
+                    + statistics.getVictories(0) + "," + statistics.getVictories(1) + ","
+                    + statistics.getShotsFired(0) + "," + statistics.getShotsFired(1) + ","
+                    + statistics.getShotsHit(0) + "," + statistics.getShotsHit(1) + ","
+                    + threads + "," + seed + "," + milliseconds);
+        } else if (format.equals("json")) {
+            System.out.println("{\"players\": [" + jsonPlayer(statistics, 0) + ", " + jsonPlayer(statistics, 1) + "], "
+                    + "\"rounds\": " + statistics.getRoundsPlayed() + ", \"cancelled\": " + statistics.getRoundsCancelled()
+                    + ", \"threads\": " + threads + ", \"seed\": " + seed + ", \"milliseconds\": " + milliseconds + "}");
+        } else {
+            System.out.println(statistics.getName(0) + " VS " + statistics.getName(1) + ": " + statistics.getRoundsPlayed()
+                    + " rounds" + (statistics.getRoundsCancelled() > 0 ? " (" + statistics.getRoundsCancelled() + " cancelled)" : "")
+                    + " in " + milliseconds + " ms on " + threads + " threads, seed " + seed + ".");
+            System.out.println("Victories: \t" + statistics.getVictories(0) + " to " + statistics.getVictories(1) + ".");
+            System.out.println("Shots fired: \t" + statistics.getShotsFired(0) + " to " + statistics.getShotsFired(1) + ".");
+            System.out.println("Shots hit: \t" + statistics.getShotsHit(0) + " to " + statistics.getShotsHit(1) + ".");
+            System.out.println(String.format(Locale.ROOT, "Accuracy: \t%.2f%% to %.2f%%.",
+                    100 * statistics.getAccuracy(0), 100 * statistics.getAccuracy(1)));
+        }
+    }
+
+    private static String jsonPlayer(TournamentStatistics statistics, int opponent) {
+        return "{\"name\": \"" + statistics.getName(opponent).replace("\\", "\\\\").replace("\"", "\\\"") + "\", "
+                + "\"victories\": " + statistics.getVictories(opponent) + ", "
+                + "\"shotsFired\": " + statistics.getShotsFired(opponent) + ", "
+                + "\"shotsHit\": " + statistics.getShotsHit(opponent) + "}";
+    }
+
+    private static String csvField(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,205 @@
+package battleship.handling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import battleship.players.Opponents;
+import battleship.players.Player;
+import battleship.utilities.Coordinates;
+
+/**
+ * A free-for-all is a game between any number of players whose ships have already been placed.
+ * On their turn, each player chooses an opponent (see Player.chooseTarget()) and fires one shot
+ * at them; a player whose fleet is sunk is eliminated, and the last one afloat wins.
+ *
+ * The players still in the game take turns in the order they were given in. They are kept in
+ * a ring of links, so that the next player is found, and an eliminated one removed, in constant
+ * time. For choosing targets, they are also kept in an array without gaps, where an eliminated
+ * player's place is taken by the last one, so that any opponent can be looked up by number.
+ * No step ever has to go through all players, however many there are.
+ *
+ * Like the GameEngine, a free-for-all prints nothing and keeps all its state in the instance.
+ */
+public class FreeForAll {
+
+    private final Player[]              players;
+    private final Map<Player, Integer>  numberOf;
+    private final Opponents[]           opponentsOf;
+
+    // The turn order, as a ring of player numbers.
+    private final int[]                 next;
+    private final int[]                 previous;
+
+    // The players still in the game, without gaps; positionOf is -1 for eliminated players.
+    private final int[]                 remaining;
+    private final int[]                 positionOf;
+    private int                         remainingCount;
+
+    private final List<Player>          eliminated = new ArrayList<Player>();
+    private int                         playerToMove = 0;
+    private int                         turnsPlayed = 0;
+    private boolean                     turnLimitExceeded = false;
+
+    public FreeForAll(List<? extends Player> players) {
+        if (players.size() < 2)
+            throw new IllegalArgumentException("A free-for-all needs at least two players.");
+        int count = players.size();
+        this.players = players.toArray(new Player[count]);
+        this.numberOf = new IdentityHashMap<Player, Integer>(2 * count);
+        this.opponentsOf = new Opponents[count];
+        this.next = new int[count];
+        this.previous = new int[count];
+        this.remaining = new int[count];
+        this.positionOf = new int[count];
+        for (int number = 0; number < count; number++) {
+            if (numberOf.put(this.players[number], number) != null)
+                throw new IllegalArgumentException(this.players[number] + " cannot take part twice.");
+            opponentsOf[number] = new OpponentsOf(number);
+            next[number] = (number + 1) % count;
+            previous[number] = (number + count - 1) % count;
+            remaining[number] = number;
+            positionOf[number] = number;
+        }
+        this.remainingCount = count;
+    }
+
+    /**
+     * The view of the remaining players that is handed to one of them when choosing a target:
+     * everyone but themselves.
+     */
+    private class OpponentsOf implements Opponents {
+
+        private final int self;
+
+        OpponentsOf(int self) {
+            this.self = self;
+        }
+
+        @Override
+        public int count() {
+            return remainingCount - 1;
+        }
+
+        @Override
+        public Player get(int index) {
+            if (index < 0 || index >= count())
+                throw new IndexOutOfBoundsException("There is no opponent number " + index + ".");
+            return players[remaining[index < positionOf[self] ? index : index + 1]];
+        }
+
+        @Override
+        public boolean contains(Player player) {
+            Integer number = numberOf.get(player);
+            return number != null && number != self && positionOf[number] >= 0;
+        }
+    }
+
+    public int getPlayerCount() {
+        return players.length;
+    }
+
+    public int getRemainingPlayerCount() {
+        return remainingCount;
+    }
+
+    public Player getPlayerToMove() {
+        return players[playerToMove];
+    }
+
+    /**
+     * @return the number of rounds in which every remaining player has fired once.
+     */
+    public int getTurnsPlayed() {
+        return turnsPlayed;
+    }
+
+    public boolean isOver() {
+        return remainingCount == 1 || turnLimitExceeded;
+    }
+
+    public boolean turnLimitWasExceeded() {
+        return turnLimitExceeded;
+    }
+
+    /**
+     * @return the last player afloat, or null while the game is going on or if it had to be stopped.
+     */
+    public Player getWinner() {
+        return remainingCount == 1 ? players[remaining[0]] : null;
+    }
+
+    /**
+     * @return the eliminated players, the first one eliminated first.
+     */
+    public List<Player> getEliminatedPlayers() {
+        return Collections.unmodifiableList(eliminated);
+    }
+
+    /**
+     * Lets the player to move choose a target and fire one shot at them.
+     * @return the player who was fired at.
+     */
+    public Player step() throws Exception {
+        if (isOver())
+            throw new IllegalStateException("The game is already over.");
+
+        int attackerNumber = playerToMove;
+        Player attacker = players[attackerNumber];
+        attacker.yourTurnHasBegun();
+        Player target = attacker.chooseTarget(opponentsOf[attackerNumber]);
+        if (!opponentsOf[attackerNumber].contains(target))
+            throw new Exception(attacker + " cannot fire at " + target + ", who is not an opponent in this game.");
+        Coordinates coordinates = attacker.promptToFireShot();
+        if (!Coordinates.coordinateIsWithinPlayingField(coordinates.x, coordinates.y))
+            throw new ArrayIndexOutOfBoundsException("Invalid coordinate (" + coordinates.x + ", " + coordinates.y + ").");
+        target.receiveSharedFireAtCell(attacker, coordinates.cellIndex());
+
+        int nextToMove = next[attackerNumber];
+        if (target.isDefeated()) {
+            int targetNumber = numberOf.get(target);
+            if (targetNumber == nextToMove)
+                nextToMove = next[targetNumber];
+            eliminate(targetNumber);
+        }
+        // The ring is in the players' order, so a round is over whenever it wraps around.
+        if (nextToMove <= attackerNumber)
+            turnsPlayed++;
+        playerToMove = nextToMove;
+
+        if (remainingCount == 1) {
+            players[remaining[0]].theGameHasEnded();
+        } else if (turnsPlayed >= Settings.MAXIMUM_PLAYABLE_TURNS) {
+            turnLimitExceeded = true;
+            for (int position = 0; position < remainingCount; position++)
+                players[remaining[position]].theGameHasEnded();
+        }
+        return target;
+    }
+
+    /**
+     * Plays until only one player is left, or the turn limit has been reached.
+     * @return the winner, or null if the turn limit was reached.
+     */
+    public Player runToCompletion() throws Exception {
+        while (!isOver())
+            step();
+        return getWinner();
+    }
+
+    private void eliminate(int number) {
+        next[previous[number]] = next[number];
+        previous[next[number]] = previous[number];
+
+        int position = positionOf[number];
+        int last = remaining[--remainingCount];
+        remaining[position] = last;
+        positionOf[last] = position;
+        positionOf[number] = -1;
+
+        eliminated.add(players[number]);
+        players[number].theGameHasEnded();
+    }
+}
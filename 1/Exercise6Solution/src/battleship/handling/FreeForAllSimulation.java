@@ -0,0 +1,112 @@
+package battleship.handling;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import battleship.players.Player;
+import battleship.players.PlayerFactory;
+import battleship.players.PlayerRegistry;
+import battleship.players.ResettablePlayerFactory;
+
+/**
+ * A headless entry point for free-for-all games (see FreeForAll) between many players, e.g.
+ *
+ * java battleship.handling.FreeForAllSimulation --types TheBlackPearl,HuntAndTarget --players 64
+ *      --games 100 --seed 42
+ *
+ * The given player types take turns filling the seats. Once all games are over, it prints
+ * how many games each type has won. The players are created once and reset between games,
+ * where their factories allow it (see ResettablePlayerFactory), and created anew otherwise.
+ */
+public class FreeForAllSimulation {
+
+    private static final String USAGE = "Usage: FreeForAllSimulation --types <type>[,<type>...] "
+            + "[--players <n>] [--games <n>] [--seed <n>]";
+
+    private String[]    types;
+    private int         players = 64;
+    private int         games   = 10;
+    private long        seed    = System.nanoTime();
+
+    public static void main(String[] arguments) throws Exception {
+        FreeForAllSimulation simulation = new FreeForAllSimulation();
+        simulation.readArguments(arguments);
+        simulation.run();
+    }
+
+    private void readArguments(String[] arguments) throws Exception {
+        for (int i = 0; i < arguments.length; i += 2) {
+            if (i + 1 >= arguments.length)
+                throw new Exception("Missing value for " + arguments[i] + ". " + USAGE);
+            String option = arguments[i];
+            String value = arguments[i + 1];
+            if (option.equals("--types"))
+                types = value.split(",");
+            else if (option.equals("--players"))
+                players = Integer.parseInt(value);
+            else if (option.equals("--games"))
+                games = Integer.parseInt(value);
+            else if (option.equals("--seed"))
+                seed = Long.parseLong(value);
+            else
+                throw new Exception("Unknown option " + option + ". " + USAGE);
+        }
+        if (types == null)
+            throw new Exception("The player types must be given. " + USAGE);
+        if (players < 2 || games < 0)
+            throw new Exception("There must be at least two players and a non-negative number of games. " + USAGE);
+    }
+
+    private void run() throws Exception {
+        PlayerFactory[] factories = new PlayerFactory[types.length];
+        for (int type = 0; type < types.length; type++)
+            factories[type] = PlayerRegistry.factoryFor(types[type]);
+        List<Player> seats = new ArrayList<Player>();
+        int[] typeOfSeat = new int[players];
+        Map<Player, Integer> seatOfPlayer = new IdentityHashMap<Player, Integer>();
+        for (int seat = 0; seat < players; seat++) {
+            typeOfSeat[seat] = seat % types.length;
+            seats.add(factories[typeOfSeat[seat]].createPlayer("Admiral " + (seat + 1)));
+            seatOfPlayer.put(seats.get(seat), seat);
+        }
+
+        long[] victories = new long[types.length];
+        long drawn = 0;
+        long turns = 0;
+        SplittableRandom random = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            for (int seat = 0; seat < players; seat++) {
+                PlayerFactory factory = factories[typeOfSeat[seat]];
+                if (game > 0 && factory instanceof ResettablePlayerFactory) {
+                    seats.get(seat).reset();
+                } else if (game > 0) {
+                    seatOfPlayer.remove(seats.get(seat));
+                    seats.set(seat, factory.createPlayer("Admiral " + (seat + 1)));
+                    seatOfPlayer.put(seats.get(seat), seat);
+                }
+                Player player = seats.get(seat);
+                player.setRandom(random.split());
+                player.placeShips();
+            }
+            FreeForAll freeForAll = new FreeForAll(seats);
+            Player winner = freeForAll.runToCompletion();
+            turns += freeForAll.getTurnsPlayed();
+            if (winner == null)
+                drawn++;
+            else
+                victories[typeOfSeat[seatOfPlayer.get(winner)]]++;
+        }
+        long milliseconds = (System.nanoTime() - start) / 1000000;
+
+        System.out.println(games + " games between " + players + " players in " + milliseconds
+                + " ms, seed " + seed + ", " + (games == 0 ? 0 : turns / games) + " turns on average.");
+        for (int type = 0; type < types.length; type++)
+            System.out.println(types[type] + ": \t" + victories[type] + " victories.");
+        if (drawn > 0)
+            System.out.println("Stopped at the turn limit: \t" + drawn + ".");
+    }
+}
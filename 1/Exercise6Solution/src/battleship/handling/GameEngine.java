@@ -0,0 +1,301 @@
+package battleship.handling;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import battleship.players.Player;
+import battleship.utilities.Coordinates;
+
+/**
+ * A game engine runs one game between two players whose ships have already been placed.
+ * It prints nothing and keeps all its state in the instance, so any number of games can be
+ * run side by side; the handlers take care of talking to the user.
+ *
+ * Each call to step() lets one player fire one shot, starting with player one. A turn is
+ * over once both players have fired.
+ *
+ * With simultaneous turns, both players choose their shots at the same time, without knowing
+ * the other's choice, and playOneTurn() is used instead of step(). When both players are AIs,
+ * they make up their minds on two threads at once, so a turn takes about as long as the slower
+ * of the two needs to decide rather than the sum. Both shots are then resolved together, and
+ * the game is only checked for a winner afterwards, so both fleets may sink in the same turn,
+ * which is a draw.
+ *
+ * Under the salvo rule, a player fires several shots on their turn instead of one: either a
+ * fixed number, or one for each of their ships still afloat (Settings.ONE_SHOT_PER_SURVIVING_SHIP).
+ * The player picks all of them at once (see Player.promptToFireSalvo()), and the enemy fleet
+ * resolves them together and reports the outcome as one SalvoResult.
+ */
+public class GameEngine {
+
+    /**
+     * Player two's decisions in simultaneous turns are made on these threads, shared by all engines.
+     */
+    private static final ExecutorService DECISION_THREADS = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "Simultaneous turn");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Player    playerOne;
+    private final Player    playerTwo;
+    private final boolean   simultaneousTurns;
+    private final int       shotsPerTurn;
+
+    private Player          playerToMove;
+    private int             turnsPlayed = 0;
+    private GameResult      result;
+
+    public GameEngine(Player playerOne, Player playerTwo) {
+        this(playerOne, playerTwo, false);
+    }
+
+    public GameEngine(Player playerOne, Player playerTwo, boolean simultaneousTurns) {
+        this(playerOne, playerTwo, simultaneousTurns, 1);
+    }
+
+    /**
+     * @param shotsPerTurn how many shots each player fires per turn: 1 for the classic game,
+     * more for the salvo rule, or Settings.ONE_SHOT_PER_SURVIVING_SHIP.
+     */
+    public GameEngine(Player playerOne, Player playerTwo, boolean simultaneousTurns, int shotsPerTurn) {
+        if (shotsPerTurn < 1 && shotsPerTurn != Settings.ONE_SHOT_PER_SURVIVING_SHIP)
+            throw new IllegalArgumentException("Invalid number of shots per turn (" + shotsPerTurn + ").");
+        this.playerOne = playerOne;
+        this.playerTwo = playerTwo;
+        this.simultaneousTurns = simultaneousTurns;
+        this.shotsPerTurn = shotsPerTurn;
+        this.playerToMove = playerOne;
+    }
+
+    public Player getPlayerOne() {
+        return playerOne;
+    }
+
+    public Player getPlayerTwo() {
+        return playerTwo;
+    }
+
+    /**
+     * @return the player who will fire on the next call to step().
+     */
+    public Player getPlayerToMove() {
+        return playerToMove;
+    }
+
+    public Player getOpponentOf(Player player) {
+        return player == playerOne ? playerTwo : playerOne;
+    }
+
+    /**
+     * @return the number of turns that both players have finished.
+     */
+    public int getTurnsPlayed() {
+        return turnsPlayed;
+    }
+
+    public boolean hasSimultaneousTurns() {
+        return simultaneousTurns;
+    }
+
+    /**
+     * @return how many shots the given player may fire on their next turn.
+     */
+    public int getShotsThisTurn(Player player) {
+        if (shotsPerTurn == Settings.ONE_SHOT_PER_SURVIVING_SHIP)
+            return Math.max(1, player.getFleet().shipsAfloat());
+        return shotsPerTurn;
+    }
+
+    public boolean isOver() {
+        return result != null;
+    }
+
+    /**
+     * @return the outcome of the game, or null while it is still going on.
+     */
+    public GameResult getResult() {
+        return result;
+    }
+
+    /**
+     * Lets the player to move fire one shot, or one salvo under the salvo rule.
+     * @return the coordinates that were fired at; for a salvo, those of its first shot.
+     */
+    public Coordinates step() throws Exception {
+        if (isOver())
+            throw new IllegalStateException("The game is already over.");
+        if (simultaneousTurns)
+            throw new IllegalStateException("With simultaneous turns, both players fire at once; use playOneTurn().");
+
+        Player attacker = playerToMove;
+        Player defender = getOpponentOf(attacker);
+        Coordinates coordinates;
+        if (shotsPerTurn == 1) {
+            attacker.yourTurnHasBegun();
+            coordinates = attacker.promptToFireShot();
+            defender.receiveFireAtCoordinates(attacker, coordinates);
+        } else {
+            Coordinates[] shots = decide(attacker);
+            fire(attacker, defender, shots);
+            coordinates = shots[0];
+        }
+
+        boolean endOfTurn = attacker == playerTwo;
+        if (endOfTurn)
+            turnsPlayed++;
+        playerToMove = defender;
+
+        if (playerOne.isDefeated() || playerTwo.isDefeated())
+            finish(new GameResult(playerOne, playerTwo, winner(), turnsPlayed, false));
+        else if (endOfTurn && turnsPlayed >= Settings.MAXIMUM_PLAYABLE_TURNS)
+            finish(new GameResult(playerOne, playerTwo, null, turnsPlayed, true));
+        return coordinates;
+    }
+
+    private void finish(GameResult result) {
+        this.result = result;
+        playerOne.theGameHasEnded();
+        playerTwo.theGameHasEnded();
+    }
+
+    /**
+     * Lets both players fire, unless the game ends after player one's shot. With simultaneous
+     * turns, both always fire, and decide at the same time if they are both AIs.
+     */
+    public void playOneTurn() throws Exception {
+        if (simultaneousTurns) {
+            playSimultaneousTurn();
+            return;
+        }
+        step();
+        if (!isOver() && playerToMove == playerTwo)
+            step();
+    }
+
+    /**
+     * Plays until the game is over.
+     */
+    public GameResult runToCompletion() throws Exception {
+        while (!isOver())
+            playOneTurn();
+        return result;
+    }
+
+    private void playSimultaneousTurn() throws Exception {
+        if (isOver())
+            throw new IllegalStateException("The game is already over.");
+
+        // Humans share the console, so they are asked one after the other.
+        if (!playerOne.isAnAIPlayer() || !playerTwo.isAnAIPlayer()) {
+            Coordinates[] shotsOfPlayerOne = decide(playerOne);
+            resolveSimultaneousSalvos(shotsOfPlayerOne, decide(playerTwo));
+            return;
+        }
+
+        Future<Coordinates[]> decisionOfPlayerTwo = DECISION_THREADS.submit(new Callable<Coordinates[]>() {
+            @Override
+            public Coordinates[] call() throws Exception {
+                return decide(playerTwo);
+            }
+        });
+        Coordinates[] shotsOfPlayerOne;
+        try {
+            shotsOfPlayerOne = decide(playerOne);
+        } catch (Exception e) {
+            // Player two must be done before anyone touches the players again.
+            awaitQuietly(decisionOfPlayerTwo);
+            throw e;
+        }
+        resolveSimultaneousSalvos(shotsOfPlayerOne, await(decisionOfPlayerTwo));
+    }
+
+    private Coordinates[] decide(Player player) throws Exception {
+        player.yourTurnHasBegun();
+        return promptForShots(player);
+    }
+
+    /**
+     * Asks the player for their shot, or for their salvo under the salvo rule.
+     * @throws Exception if a salvo does not have between one and the allowed number of shots.
+     */
+    public Coordinates[] promptForShots(Player player) throws Exception {
+        if (shotsPerTurn == 1)
+            return new Coordinates[] { player.promptToFireShot() };
+        int shots = getShotsThisTurn(player);
+        Coordinates[] salvo = player.promptToFireSalvo(shots);
+        if (salvo.length < 1 || salvo.length > shots)
+            throw new Exception(player + " has fired " + salvo.length + " shots instead of up to " + shots + ".");
+        return salvo;
+    }
+
+    /**
+     * A single shot is resolved on its own, with the usual callbacks; anything more as a salvo.
+     */
+    private static void fire(Player attacker, Player defender, Coordinates[] shots) {
+        if (shots.length == 1)
+            defender.receiveFireAtCoordinates(attacker, shots[0]);
+        else
+            defender.receiveSalvo(attacker, shots);
+    }
+
+    private static Coordinates[] await(Future<Coordinates[]> decision) throws Exception {
+        try {
+            return decision.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static void awaitQuietly(Future<Coordinates[]> decision) {
+        try {
+            decision.get();
+        } catch (Exception e) {
+            // Only the first failure is reported.
+        }
+    }
+
+    /**
+     * Resolves one turn of shots that both players have already chosen, e.g. by asking them
+     * in turn on the console. Both shots land before the game is checked for a winner.
+     */
+    public void resolveSimultaneousShots(Coordinates shotOfPlayerOne, Coordinates shotOfPlayerTwo) {
+        resolveSimultaneousSalvos(new Coordinates[] { shotOfPlayerOne }, new Coordinates[] { shotOfPlayerTwo });
+    }
+
+    /**
+     * Same as above, for salvos.
+     */
+    public void resolveSimultaneousSalvos(Coordinates[] shotsOfPlayerOne, Coordinates[] shotsOfPlayerTwo) {
+        if (isOver())
+            throw new IllegalStateException("The game is already over.");
+        fire(playerOne, playerTwo, shotsOfPlayerOne);
+        fire(playerTwo, playerOne, shotsOfPlayerTwo);
+        turnsPlayed++;
+        playerToMove = playerOne;
+
+        if (playerOne.isDefeated() || playerTwo.isDefeated())
+            finish(new GameResult(playerOne, playerTwo, winner(), turnsPlayed, false));
+        else if (turnsPlayed >= Settings.MAXIMUM_PLAYABLE_TURNS)
+            finish(new GameResult(playerOne, playerTwo, null, turnsPlayed, true));
+    }
+
+    private Player winner() {
+        if (playerOne.isDefeated() && !playerTwo.isDefeated())
+            return playerTwo;
+        if (playerTwo.isDefeated() && !playerOne.isDefeated())
+            return playerOne;
+        return null;
+    }
+}
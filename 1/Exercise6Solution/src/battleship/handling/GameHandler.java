@@ -16,8 +16,8 @@ public class GameHandler {
     private static boolean	simultaneousTurns;
     private static boolean	showBothFleets;
     private static boolean	passiveSpectatorMode = false;
-    private static boolean	gameIsOver;
     private static boolean	confirmTurnBeginning;
+    private static GameEngine	game;
 
     /**
      * If your console output is too wide, you can do any of the following:
@@ -73,11 +73,12 @@ public class GameHandler {
         playerOne.placeShips();
         playerTwo.placeShips();
 
-        simultaneousTurns = false;
+        simultaneousTurns = Settings.SIMULTANEOUS_TURNS;
 
         // ------------------------------------------------
         // Start playing!
         // ------------------------------------------------
+        game = new GameEngine(playerOne, playerTwo, simultaneousTurns, Settings.SHOTS_PER_TURN);
         System.out.println("The battle between " + playerOne + " and " + playerTwo + " begins!");
         playUntilTheEnd();
     }
@@ -91,13 +92,12 @@ public class GameHandler {
      */
     private static void playUntilTheEnd() throws Exception {
         System.out.println("You have " + Settings.MAXIMUM_PLAYABLE_TURNS + " turns to end this!");
-        for (int turns = 0; turns < Settings.MAXIMUM_PLAYABLE_TURNS; turns++) {
-            if (gameIsOver) 
-                return;
-            System.out.println((Settings.MAXIMUM_PLAYABLE_TURNS - turns) + " turns remaining.");
+        while (!game.isOver()) {
+            System.out.println((Settings.MAXIMUM_PLAYABLE_TURNS - game.getTurnsPlayed()) + " turns remaining.");
             playOneTurn();
         }
-        throw new Exception("Maximum number of turns (" + Settings.MAXIMUM_PLAYABLE_TURNS + ") exceeded!");
+        if (game.getResult().turnLimitWasExceeded())
+            throw new Exception(game.getResult().toString());
     }
 
     /**
@@ -108,44 +108,66 @@ public class GameHandler {
             System.out.println("Press a key to start this turn.");
             Input.waitForAnyInput();
         }
+        if (simultaneousTurns) {
+            playOneSimultaneousTurn();
+            return;
+        }
         if (passiveSpectatorMode) {
             drawTheFleetsAsSeenByPlayer(playerOne);
-            playerOne.yourTurnHasBegun();
-            openFire(playerOne);
-            endTheGameIfEitherPlayerIsDefeated();
-            if (!gameIsOver) {
+            openFire();
+            if (!game.isOver()) {
                 drawTheFleetsAsSeenByPlayer(playerTwo);
-                playerTwo.yourTurnHasBegun();
-                openFire(playerTwo);
-                endTheGameIfEitherPlayerIsDefeated();
+                openFire();
             }
         } else {
             drawThePlayerSeparatorIfTwoHumansArePlaying(playerOne);
             if (!playerOne.isAnAIPlayer() || showBothFleets)
                 drawTheFleetsAsSeenByPlayer(playerOne);
             drawAFancyLine();
-            playerOne.yourTurnHasBegun();
-            openFire(playerOne);
-            if (!simultaneousTurns)
-                endTheGameIfEitherPlayerIsDefeated();
+            openFire();
 
-            if (!gameIsOver) {
+            if (!game.isOver()) {
                 drawThePlayerSeparatorIfTwoHumansArePlaying(playerTwo);
                 if (!playerTwo.isAnAIPlayer())
                     drawTheFleetsAsSeenByPlayer(playerTwo);
                 drawAFancyLine();
-                playerTwo.yourTurnHasBegun();
-                openFire(playerTwo);
-                endTheGameIfEitherPlayerIsDefeated();
+                openFire();
             }
         }
     }
 
-    private static void endTheGameIfEitherPlayerIsDefeated() {
-        if (playerOne.isDefeated() || playerTwo.isDefeated()) {
-            gameIsOver = true;
-            proclaimTheWinner();
+    /**
+     * Makes both players choose a shot before either of them lands. AIs are left to the game
+     * engine, which lets them think at the same time; humans are asked one after the other.
+     */
+    private static void playOneSimultaneousTurn() throws Exception {
+        if (playerOne.isAnAIPlayer() && playerTwo.isAnAIPlayer()) {
+            if (passiveSpectatorMode || showBothFleets)
+                drawTheFleetsAsSeenByPlayer(playerOne);
+            game.playOneTurn();
+        } else {
+            Coordinates[] shotsOfPlayerOne = chooseShots(playerOne);
+            Coordinates[] shotsOfPlayerTwo = chooseShots(playerTwo);
+            game.resolveSimultaneousSalvos(shotsOfPlayerOne, shotsOfPlayerTwo);
         }
+        proclaimTheWinnerIfTheGameIsOver();
+    }
+
+    private static Coordinates[] chooseShots(Player player) throws Exception {
+        drawThePlayerSeparatorIfTwoHumansArePlaying(player);
+        if (!player.isAnAIPlayer())
+            drawTheFleetsAsSeenByPlayer(player);
+        drawAFancyLine();
+        player.yourTurnHasBegun();
+        int shots = game.getShotsThisTurn(player);
+        if (shots > 1)
+            System.out.println(player + " may fire " + shots + " shots this turn.");
+        return game.promptForShots(player);
+    }
+
+    private static void proclaimTheWinnerIfTheGameIsOver() {
+        if (game.isOver() && !game.getResult().turnLimitWasExceeded())
+            proclaimTheWinner();
     }
 
     private static void drawTheFleetsAsSeenByPlayer(Player currentlyActivePlayer) {
@@ -239,12 +261,11 @@ public class GameHandler {
     // Player Actions
     // ----------------------------------------------------------------------------------------------------
 
-    private static void openFire (Player attacker) throws Exception {
-        fireAtCoordinates (attacker, attacker.promptToFireShot());
-    }
-
-    private static void fireAtCoordinates(Player attacker, Coordinates coordinates) {
-        Player defender = (attacker == playerOne ? playerTwo : playerOne);
-        defender.receiveFireAtCoordinates(attacker, coordinates);
+    /**
+     * Lets the player whose turn it is fire one shot.
+     */
+    private static void openFire() throws Exception {
+        game.step();
+        proclaimTheWinnerIfTheGameIsOver();
     }
 }
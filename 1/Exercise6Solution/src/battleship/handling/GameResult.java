@@ -0,0 +1,99 @@
+package battleship.handling;
+
+import battleship.players.Player;
+
+/**
+ * The outcome of one game played by a GameEngine. The players themselves keep their
+ * statistics (shots fired, hits, misses), so they can be asked for those afterwards.
+ */
+public class GameResult {
+
+    private final Player    playerOne;
+    private final Player    playerTwo;
+    private final Player    winner;
+    private final int       turnsPlayed;
+    private final boolean   turnLimitExceeded;
+    private final boolean   forfeited;
+
+    /**
+     * @param winner the winning player, or null for a draw.
+     */
+    public GameResult(Player playerOne, Player playerTwo, Player winner, int turnsPlayed, boolean turnLimitExceeded) {
+        this(playerOne, playerTwo, winner, turnsPlayed, turnLimitExceeded, false);
+    }
+
+    private GameResult(Player playerOne, Player playerTwo, Player winner, int turnsPlayed,
+            boolean turnLimitExceeded, boolean forfeited) {
+        this.playerOne = playerOne;
+        this.playerTwo = playerTwo;
+        this.winner = winner;
+        this.turnsPlayed = turnsPlayed;
+        this.turnLimitExceeded = turnLimitExceeded;
+        this.forfeited = forfeited;
+    }
+
+    /**
+     * @return the result of a game that never started, because the given player could not place their ships.
+     */
+    public static GameResult forfeit(Player playerOne, Player playerTwo, Player loser) {
+        return new GameResult(playerOne, playerTwo, loser == playerOne ? playerTwo : playerOne, 0, false, true);
+    }
+
+    /**
+     * @return the player who started the game.
+     */
+    public Player getPlayerOne() {
+        return playerOne;
+    }
+
+    public Player getPlayerTwo() {
+        return playerTwo;
+    }
+
+    /**
+     * @return the winning player, or null if the game was a draw or had to be stopped.
+     */
+    public Player getWinner() {
+        return winner;
+    }
+
+    public Player getLoser() {
+        if (winner == null)
+            return null;
+        return winner == playerOne ? playerTwo : playerOne;
+    }
+
+    public boolean isADraw() {
+        return winner == null;
+    }
+
+    public int getTurnsPlayed() {
+        return turnsPlayed;
+    }
+
+    /**
+     * @return whether the game was stopped because Settings.MAXIMUM_PLAYABLE_TURNS had been played
+     * without either fleet being defeated.
+     */
+    public boolean turnLimitWasExceeded() {
+        return turnLimitExceeded;
+    }
+
+    /**
+     * @return whether the loser could not place their ships, so that the game never started.
+     */
+    public boolean wasForfeited() {
+        return forfeited;
+    }
+
+    @Override
+    public String toString() {
+        if (forfeited)
+            return "Player " + getLoser() + " could not place the ships and looses.";
+        if (turnLimitExceeded)
+            return "Maximum number of turns (" + Settings.MAXIMUM_PLAYABLE_TURNS + ") exceeded!";
+        if (winner == null)
+            return "Both fleets have been sunk. The fight is a draw!";
+        return "RULE THE WAVES! " + winner + " has won the battle!";
+    }
+}
@@ -0,0 +1,78 @@
+package battleship.handling;
+
+import battleship.tiles.FleetState;
+import battleship.tiles.ShotResult;
+
+/**
+ * A game state holds both fleets of a game (see FleetState) and whose turn it is. It can be
+ * copied cheaply and played on without players or callbacks, e.g. to play out hypothetical
+ * games to their end. Player number 0 is the one who started the game.
+ */
+public class GameState {
+
+    private final FleetState[]  fleets;
+    private int                 playerToMove;
+    private int                 turnsPlayed;
+
+    public GameState(FleetState firstPlayersFleet, FleetState secondPlayersFleet, int playerToMove) {
+        this.fleets = new FleetState[] { firstPlayersFleet, secondPlayersFleet };
+        this.playerToMove = playerToMove;
+    }
+
+    private GameState(GameState original) {
+        this.fleets = new FleetState[] { original.fleets[0].copy(), original.fleets[1].copy() };
+        this.playerToMove = original.playerToMove;
+        this.turnsPlayed = original.turnsPlayed;
+    }
+
+    /**
+     * @return an independent copy; moves in either one do not affect the other.
+     */
+    public GameState copy() {
+        return new GameState(this);
+    }
+
+    /**
+     * Lets the player to move fire at the given cell of the other player's fleet, then passes the turn on.
+     */
+    public ShotResult shoot(int cellIndex) {
+        ShotResult result = fleets[1 - playerToMove].shoot(cellIndex);
+        playerToMove = 1 - playerToMove;
+        turnsPlayed++;
+        return result;
+    }
+
+    public int playerToMove() {
+        return playerToMove;
+    }
+
+    public int turnsPlayed() {
+        return turnsPlayed;
+    }
+
+    public FleetState fleetOf(int player) {
+        return fleets[player];
+    }
+
+    /**
+     * @return the fleet the player to move is firing at.
+     */
+    public FleetState targetFleet() {
+        return fleets[1 - playerToMove];
+    }
+
+    public boolean isOver() {
+        return fleets[0].isDefeated() || fleets[1].isDefeated();
+    }
+
+    /**
+     * @return the number of the player whose fleet is still afloat, or -1 while the game is not over.
+     */
+    public int winner() {
+        if (fleets[1].isDefeated())
+            return 0;
+        if (fleets[0].isDefeated())
+            return 1;
+        return -1;
+    }
+}
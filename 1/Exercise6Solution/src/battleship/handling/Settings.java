@@ -18,6 +18,59 @@ public class Settings {
 
     public static final boolean ALLOW_ADJACENT_SHIP_PLACEMENT = false;
 
+    /**
+     * Whether both players choose their shots at the same time in the GameHandler, and both
+     * shots land before the turn is checked for a winner (see GameEngine).
+     */
+    public static final boolean SIMULTANEOUS_TURNS            = false;
+
+    /**
+     * How many shots each player fires per turn in the GameHandler. With more than one, all of
+     * a turn's shots are fired together as a salvo (see GameEngine). ONE_SHOT_PER_SURVIVING_SHIP
+     * gives each player as many shots as they have ships afloat.
+     */
+    public static final int     SHOTS_PER_TURN                = 1;
+    public static final int     ONE_SHOT_PER_SURVIVING_SHIP   = 0;
+
+    /**
+     * Whether players' fleets are stored as bit sets (BitboardFleet) rather than as a grid of
+     * tile objects (Fleet). Both behave the same; the bit sets are simply faster.
+     */
+    public static final boolean USE_BITBOARD_FLEET            = true;
+
+    /**
+     * How many fleet layouts are drawn to place a fleet at random, of which one is kept (see
+     * SequentialFleetSampler.sampleNearlyUniform()). The more there are, the closer every legal
+     * layout comes to being equally likely, and the longer placing a fleet takes.
+     */
+    public static final int     FLEET_LAYOUTS_PER_PLACEMENT   = 300;
+
+    /**
+     * How many enemy fleet layouts the MonteCarloHunter samples before each shot, on how many
+     * threads, and at most how many milliseconds it spends on that. 0 milliseconds means no time
+     * limit, so that only the number of layouts bounds the work, and seeded games are repeatable
+     * whatever the number of threads. A time limit gives that up: how many layouts fit into it
+     * depends on the machine and whatever else it is doing, so the same seed may play differently.
+     */
+    public static final int     MONTE_CARLO_SAMPLES_PER_SHOT  = 2000;
+    public static final int     MONTE_CARLO_THREADS           = Runtime.getRuntime().availableProcessors();
+    public static final long    MONTE_CARLO_MILLISECONDS      = 0;
+
+    /**
+     * Whether AIs share the decisions they have worked out through transposition tables (see
+     * TranspositionTable), across turns, games and threads. That saves work, but which games
+     * found a decision first then depends on the threads, so seeded results may vary with them.
+     */
+    public static final boolean USE_TRANSPOSITION_TABLES      = false;
+
+    /**
+     * Whether placements are counted with the Java Vector API (see DensityKernel). That takes
+     * the src-vector folder compiled in and the jdk.incubator.vector module at runtime; without
+     * them, the scalar kernel is used anyway, so this is only worth turning off to compare the
+     * two. The counts are the same either way.
+     */
+    public static final boolean USE_VECTOR_API                = true;
+
     public static final int     ONE_TILE_SHIPS                = 0;  // Default: 0
     public static final int     TWO_TILE_SHIPS                = 4;  // Default: 4
     public static final int     THREE_TILE_SHIPS              = 3;  // Default: 3
@@ -0,0 +1,217 @@
+package battleship.handling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import battleship.players.Player;
+import battleship.players.PlayerFactory;
+import battleship.players.ResettablePlayerFactory;
+
+/**
+ * A tournament plays round after round between two opponents and keeps TournamentStatistics.
+ * Each thread creates its two players once and resets them between rounds (see Player.reset()),
+ * if their factories allow that (see ResettablePlayerFactory), and creates new players for
+ * every round otherwise. Opponent one starts in the even rounds (counting from 0), opponent
+ * two in the odd ones, so that neither gains an advantage from starting. Since a round's
+ * starting side only depends on its number, rounds can be played in any order, and run()
+ * spreads them over several threads.
+ *
+ * Every round gets its own random number generator, derived from the tournament's seed and
+ * the round's number, which is split once for each player. Given the same seed, a tournament
+ * therefore plays exactly the same games, however many threads it is run on.
+ */
+public class Tournament {
+
+    private final PlayerFactory[]       factories;
+    private final String[]              names;
+    private final TournamentStatistics  statistics;
+    private final long                  seed;
+    private boolean                     simultaneousTurns = false;
+    private int                         shotsPerTurn = 1;
+
+    public Tournament(PlayerFactory opponentOne, String opponentOneName,
+            PlayerFactory opponentTwo, String opponentTwoName) {
+        this(opponentOne, opponentOneName, opponentTwo, opponentTwoName, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param opponentOneName the name opponent one's players are given.
+     */
+    public Tournament(PlayerFactory opponentOne, String opponentOneName,
+            PlayerFactory opponentTwo, String opponentTwoName, long seed) {
+        this.seed = seed;
+        this.factories = new PlayerFactory[] { opponentOne, opponentTwo };
+        this.names = new String[] { opponentOneName, opponentTwoName };
+        this.statistics = new TournamentStatistics(opponentOne.createPlayer(opponentOneName).toString(),
+                opponentTwo.createPlayer(opponentTwoName).toString());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Makes the rounds played from now on use simultaneous turns (see GameEngine). A round
+     * that both fleets lose in the same turn is a draw, and counts as a victory for neither.
+     */
+    public void setSimultaneousTurns(boolean simultaneousTurns) {
+        this.simultaneousTurns = simultaneousTurns;
+    }
+
+    /**
+     * Makes the rounds played from now on use the salvo rule (see GameEngine), unless the
+     * number of shots per turn is 1.
+     */
+    public void setShotsPerTurn(int shotsPerTurn) {
+        this.shotsPerTurn = shotsPerTurn;
+    }
+
+    public TournamentStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the number of the opponent who starts the given round.
+     */
+    public static int startingOpponent(int round) {
+        return round & 1;
+    }
+
+    /**
+     * Plays one round with newly created players and adds it to the statistics. A player who
+     * cannot place their ships loses the round by forfeit.
+     * @throws Exception if the game had to be cancelled, e.g. because the turn limit was
+     * exceeded or one of the players failed; the round is then counted as cancelled.
+     */
+    public GameResult playRound(int round) throws Exception {
+        return playRound(round, new Player[2]);
+    }
+
+    /**
+     * Same as above, but reuses the players in the given array, indexed by opponent number,
+     * where their factories allow it. Other players are created and stored in the array.
+     */
+    private GameResult playRound(int round, Player[] players) throws Exception {
+        statistics.recordRound();
+        try {
+            for (int opponent = 0; opponent < 2; opponent++) {
+                if (players[opponent] != null && factories[opponent] instanceof ResettablePlayerFactory)
+                    players[opponent].reset();
+                else
+                    players[opponent] = factories[opponent].createPlayer(names[opponent]);
+            }
+        } catch (Exception e) {
+            statistics.recordCancelledRound();
+            throw e;
+        }
+
+        int first = startingOpponent(round);
+        Player playerOne = players[first];
+        Player playerTwo = players[1 - first];
+        SplittableRandom roundRandom = randomForRound(round);
+        SplittableRandom opponentOneRandom = roundRandom.split();
+        SplittableRandom opponentTwoRandom = roundRandom.split();
+        playerOne.setRandom(first == 0 ? opponentOneRandom : opponentTwoRandom);
+        playerTwo.setRandom(first == 0 ? opponentTwoRandom : opponentOneRandom);
+
+        for (int opponent = 0; opponent < 2; opponent++) {
+            Player player = opponent == 0 ? playerOne : playerTwo;
+            try {
+                player.placeShips();
+            } catch (Exception e) {
+                int winningOpponent = opponent == 0 ? 1 - first : first;
+                statistics.recordVictory(winningOpponent);
+                return GameResult.forfeit(playerOne, playerTwo, player);
+            }
+        }
+
+        GameResult result;
+        try {
+            result = new GameEngine(playerOne, playerTwo, simultaneousTurns, shotsPerTurn).runToCompletion();
+            if (result.turnLimitWasExceeded())
+                throw new Exception(result.toString());
+        } catch (Exception e) {
+            statistics.recordCancelledRound();
+            throw e;
+        }
+
+        if (result.getWinner() != null)
+            statistics.recordVictory(result.getWinner() == playerOne ? first : 1 - first);
+        statistics.recordShots(first, playerOne.getShotsFired(), playerOne.getHits());
+        statistics.recordShots(1 - first, playerTwo.getShotsFired(), playerTwo.getHits());
+        return result;
+    }
+
+    /**
+     * Seeding generators with neighbouring numbers would give overlapping sequences, so the
+     * round's number is first scrambled together with the seed (the finaliser of MurmurHash3).
+     */
+    private SplittableRandom randomForRound(int round) {
+        long mixed = seed + (round + 1) * 0x9E3779B97F4A7C15L;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return new SplittableRandom(mixed ^ (mixed >>> 33));
+    }
+
+    /**
+     * Plays the given number of rounds on a pool of the given number of threads. Each thread
+     * keeps taking the next round that nobody has started yet, so uneven rounds do not leave
+     * threads idle. Cancelled rounds are only counted.
+     * @throws Error or RuntimeException whatever made a thread stop playing, once all threads
+     * have finished; the statistics then lack that thread's remaining rounds.
+     */
+    public void run(int rounds, int threads) throws InterruptedException {
+        final int lastRound = rounds;
+        final AtomicInteger nextRound = new AtomicInteger(0);
+        List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    Player[] players = new Player[2];
+                    for (int round = nextRound.getAndIncrement(); round < lastRound;
+                            round = nextRound.getAndIncrement()) {
+                        try {
+                            playRound(round, players);
+                        } catch (Exception e) {
+                            // Already counted as cancelled. The players may be in any state,
+                            // so start afresh.
+                            for (int opponent = 0; opponent < 2; opponent++) {
+                                if (players[opponent] != null)
+                                    players[opponent].theGameHasEnded();
+                                players[opponent] = null;
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Future<Void>> finishedWorkers;
+        try {
+            finishedWorkers = pool.invokeAll(workers);
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        for (Future<Void> worker : finishedWorkers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+}
@@ -1,36 +1,26 @@
 package battleship.handling;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
-import java.util.Map;
-
 import battleship.players.Player;
-import battleship.utilities.Coordinates;
+import battleship.players.PlayerFactory;
+import battleship.players.PlayerRegistry;
 import battleship.utilities.Input;
 import battleship.utilities.StringManipulation;
 
 public class TournamentHandler {
 
-    private static Constructor<?> constructorForOpponent1;
-    private static Constructor<?> constructorForOpponent2;
+    private static final int TOURNAMENT_ROUNDS = 100;
+
+    /**
+     * Unless every round is to be shown, the rounds are spread over this many threads.
+     */
+    private static final int TOURNAMENT_THREADS = Runtime.getRuntime().availableProcessors();
+
     private static String opponent1Name = "The Spanish Armada";
     private static String opponent2Name = "Perfidious Albion";
-    // we swap the beginning team with each round to avoid an advantage for the beginning player
-    private static boolean  swapBeginningTeam = true;
-    private static Player	playerOne;
-    private static Player	playerTwo;
-    // used to access the statistics maps as the objects are freshly initialized each round, but the strings are stable
-    private static String playerOneKey;
-    private static String playerTwoKey;
-    private static boolean	gameIsOver;
 
-    private static boolean tournamentStatisticsInitialized = false;
+    // the tournament swaps the beginning team with each round to avoid an advantage for the beginning player
+    private static Tournament tournament;
     private static boolean waitAfterEveryTournamentRound = false;
-    private static int tournamentRound = 0;
-    private static int tournamentRoundsCancelled = 0;
-    private static Map<String, Integer> tournamentVictories = new HashMap<String, Integer>();
-    private static Map<String, Integer> tournamentShotsFired = new HashMap<String, Integer>();
-    private static Map<String, Integer> tournamentShotsHit = new HashMap<String, Integer>();
 
     /**
      * If your console output is too wide, you can do any of the following:
@@ -65,204 +55,110 @@ public class TournamentHandler {
         waitAfterEveryTournamentRound = Input.nextBoolean();
         Input.nextLine(); // eat up the line end after the boolean value
 
-        // We use Java reflection to construct a class and class instance 
-        // from a user entered string, this has not been covered in class 
+        // The player types are looked up in the PlayerRegistry, which knows the players
+        // in battleship.players by name and falls back to loading other classes by name
+        PlayerFactory opponent1 = null;
         do {
             System.out.println("Enter a class name for player 1 or RETURN for the default (CustomComputerOpponent):");
             String clazzName = Input.nextLine();
             if (clazzName == null || clazzName.trim().isEmpty()) {
-                clazzName = "battleship.players.CustomComputerOpponent"; 
+                clazzName = "CustomComputerOpponent"; 
             } else {
-                clazzName = "battleship.players." + clazzName;
                 System.out.println("Enter a name (String) for player 1:");
                 opponent1Name = Input.nextLine();                
             }
             try {
-                Class<?> clazz = Class.forName(clazzName);
-                constructorForOpponent1 = clazz.getConstructor(String.class);
-                playerOne = (Player)constructorForOpponent1.newInstance(new Object[] { opponent1Name });
+                opponent1 = PlayerRegistry.factoryFor(clazzName);
             } catch (ClassNotFoundException e) {
                 // err and ask user again
                 System.err.println("Class " + clazzName + " could not be loaded! ");
                 System.err.println(e.getMessage());
             }
-        } while (playerOne == null);
+        } while (opponent1 == null);
 
+        PlayerFactory opponent2 = null;
         do {
             System.out.println("Enter a class name for player 2 or RETURN for the default (CustomComputerOpponent):");
             String clazzName = Input.nextLine();
             if (clazzName == null || clazzName.trim().isEmpty()) {
-                clazzName = "battleship.players.CustomComputerOpponent"; 
+                clazzName = "CustomComputerOpponent"; 
             } else {
-                clazzName = "battleship.players." + clazzName;
                 System.out.println("Enter a name (String) for player 2:");
                 opponent2Name = Input.nextLine();                
             }
             try {
-                Class<?> clazz = Class.forName(clazzName);
-                constructorForOpponent2 = clazz.getConstructor(String.class);
-                playerTwo = (Player)constructorForOpponent2.newInstance(new Object[] { opponent2Name });
+                opponent2 = PlayerRegistry.factoryFor(clazzName);
             } catch (ClassNotFoundException e) {
                 // err and ask user again
                 System.err.println("Class " + clazzName + " could not be loaded! ");
                 System.err.println(e.getMessage());
             }
-        } while (playerTwo == null);
+        } while (opponent2 == null);
+
+        tournament = new Tournament(opponent1, opponent1Name, opponent2, opponent2Name);
         runTournament();
     }
 
     private static void runTournament () throws Exception {
-        for (int i = 0; i < 100; i++) {
-            runOneTournamentRound();
-            if (waitAfterEveryTournamentRound) {
+        if (waitAfterEveryTournamentRound) {
+            for (int round = 0; round < TOURNAMENT_ROUNDS; round++) {
+                runOneTournamentRound(round);
                 printTournamentState();
                 Input.waitForAnyInput();
             }
+        } else {
+            tournament.run(TOURNAMENT_ROUNDS, TOURNAMENT_THREADS);
         }
 
         printTournamentState();
-        String winner;
-        if (tournamentVictories.get(playerOneKey) == tournamentVictories.get(playerTwoKey))
-            winner = null;
-        else 
-            winner = (tournamentVictories.get(playerOneKey) > tournamentVictories.get(playerTwoKey)) ? playerOneKey : playerTwoKey;
+        int leader = tournament.getStatistics().getLeader();
 
         drawAFancyLine(60, 0, 1);
-        if (winner == null) {
+        if (leader < 0) {
             System.out.println(StringManipulation.TAB + StringManipulation.TAB + "It's a draw!");
         } else {
-            System.out.println(StringManipulation.TAB + StringManipulation.TAB + "This makes " + winner + " the winner!");
+            System.out.println(StringManipulation.TAB + StringManipulation.TAB + "This makes " + tournament.getStatistics().getName(leader) + " the winner!");
         }
         drawAFancyLine(60, 0, 1);
     }
 
     private static void printTournamentState() {
-        String playerOneKey = playerOne.toString();
-        String playerTwoKey = playerTwo.toString();
+        TournamentStatistics statistics = tournament.getStatistics();
 
         drawAFancyLine();
 
-        System.out.println(playerOne + " VS " + playerTwo + "! Tournament round " + tournamentRound + (tournamentRoundsCancelled > 0 ? " (" + tournamentRoundsCancelled + " cancelled)" : "") + ".");
-        System.out.println("Victories: " + StringManipulation.TAB + tournamentVictories.get(playerOneKey) + " to " + tournamentVictories.get(playerTwoKey) + ".");
-        System.out.println("Shots fired: " + StringManipulation.TAB + tournamentShotsFired.get(playerOneKey) + " to " + tournamentShotsFired.get(playerTwoKey) + "." );
-        System.out.println("Shots hit: " + StringManipulation.TAB + tournamentShotsHit.get(playerOneKey) + " to " + tournamentShotsHit.get(playerTwoKey) + "." );
-
-        double playerOneAccuracy = (double) tournamentShotsHit.get(playerOneKey) / (double) tournamentShotsFired.get(playerOneKey);
-        double playerTwoAccuracy = (double) tournamentShotsHit.get(playerTwoKey) / (double) tournamentShotsFired.get(playerTwoKey);
-
-        System.out.println("Accuracy: " + Math.round(100 * playerOneAccuracy) + "% to " + Math.round(100 * playerTwoAccuracy) + "%.");
+        System.out.println(statistics.getName(0) + " VS " + statistics.getName(1) + "! Tournament round " + statistics.getRoundsPlayed() + (statistics.getRoundsCancelled() > 0 ? " (" + statistics.getRoundsCancelled() + " cancelled)" : "") + ".");
+        System.out.println("Victories: " + StringManipulation.TAB + statistics.getVictories(0) + " to " + statistics.getVictories(1) + ".");
+        System.out.println("Shots fired: " + StringManipulation.TAB + statistics.getShotsFired(0) + " to " + statistics.getShotsFired(1) + "." );
+        System.out.println("Shots hit: " + StringManipulation.TAB + statistics.getShotsHit(0) + " to " + statistics.getShotsHit(1) + "." );
+        System.out.println("Accuracy: " + Math.round(100 * statistics.getAccuracy(0)) + "% to " + Math.round(100 * statistics.getAccuracy(1)) + "%.");
 
         drawAFancyLine();
     }
 
-    private static void runOneTournamentRound() throws Exception {
-        tournamentRound++;
-        gameIsOver = false;
-
-        if (swapBeginningTeam) {
-            playerOne = (Player)constructorForOpponent1.newInstance(new Object[] { opponent1Name });
-            playerTwo = (Player)constructorForOpponent2.newInstance(new Object[] { opponent2Name });
-            swapBeginningTeam = false;  
-        } else {
-            playerTwo = (Player)constructorForOpponent1.newInstance(new Object[] { opponent1Name });
-            playerOne = (Player)constructorForOpponent2.newInstance(new Object[] { opponent2Name });
-            swapBeginningTeam = true;
-        }
-        playerOneKey = playerOne.toString();
-        playerTwoKey = playerTwo.toString();
-        if (!tournamentStatisticsInitialized) {
-            // access to the map is by the players' string as the objects change with each run!
-            tournamentVictories.put(playerOneKey, 0);
-            tournamentVictories.put(playerTwoKey, 0);
-            tournamentShotsFired.put(playerOneKey, 0);
-            tournamentShotsFired.put(playerTwoKey, 0);
-            tournamentShotsHit.put(playerOneKey, 0);
-            tournamentShotsHit.put(playerTwoKey, 0);
-            tournamentStatisticsInitialized = true;
-        }
+    /**
+     * Plays one round, printing its outcome.
+     */
+    private static void runOneTournamentRound(int round) {
         String exceptionMessage = "";
         try {
-            playerOne.placeShips();
-        } catch (Exception e) {
-            exceptionMessage = "Tournament round " + tournamentRound + " had to be cancelled. Player " + playerOne + " could not place the ships and looses. ";
-            // opponent wins
-            tournamentVictories.put(playerTwoKey, tournamentVictories.get(playerTwoKey) + 1);
-        }
-        try {
-            if (exceptionMessage.equals(""))
-                playerTwo.placeShips();
-        } catch (Exception e) {
-            exceptionMessage = "Tournament round " + tournamentRound + " had to be cancelled. Player " + playerTwo + " could not place the ships and looses. ";
-            // opponent wins
-            tournamentVictories.put(playerOneKey, tournamentVictories.get(playerOneKey) + 1);
-        }
-        try {
-            if (exceptionMessage.equals(""))
-                playUntilTheEnd();
+            GameResult result = tournament.playRound(round);
+            if (result.wasForfeited())
+                exceptionMessage = "Tournament round " + (round + 1) + " had to be cancelled. " + result;
+            else
+                proclaimTheWinner(result);
         } catch (Exception e) {
-            exceptionMessage = "Tournament round " + tournamentRound + " had to be cancelled due to unforseen problems. " + e.getMessage();
-            tournamentRoundsCancelled++;
+            exceptionMessage = "Tournament round " + (round + 1) + " had to be cancelled due to unforseen problems. " + e.getMessage();
         }
         if (!exceptionMessage.equals("")) {
             drawAFancyLine(60, 0, 1);
             System.out.println(exceptionMessage);
             drawAFancyLine(60, 0 , 1);
-            return;
         }
-
-        if (playerOne.isDefeated() && !playerTwo.isDefeated()) 
-            tournamentVictories.put(playerTwoKey, tournamentVictories.get(playerTwoKey) + 1);
-        else if (playerTwo.isDefeated() && !playerOne.isDefeated())
-            tournamentVictories.put(playerOneKey, tournamentVictories.get(playerOneKey) + 1);
-
-        tournamentShotsFired.put(playerOneKey, tournamentShotsFired.get(playerOneKey) + playerOne.getShotsFired());
-        tournamentShotsFired.put(playerTwoKey, tournamentShotsFired.get(playerTwoKey) + playerTwo.getShotsFired());
-        tournamentShotsHit.put(playerOneKey, tournamentShotsHit.get(playerOneKey) + playerOne.getHits());
-        tournamentShotsHit.put(playerTwoKey, tournamentShotsHit.get(playerTwoKey) + playerTwo.getHits());
     }
 
 
-    // ----------------------------------------------------------------------------------------------------
-    // Running the game
-    // ----------------------------------------------------------------------------------------------------
-
-    /**
-     * Makes the players play turn by turn until either one of them loses.
-     */
-    private static void playUntilTheEnd() throws Exception {
-        System.out.println("Player " + playerOne + " starts...");
-        for (int turns = 0; turns < Settings.MAXIMUM_PLAYABLE_TURNS; turns++) {
-            if (!gameIsOver)
-                playOneTurn();
-            else
-                return;
-        }
-        throw new Exception("Maximum number of turns (" + Settings.MAXIMUM_PLAYABLE_TURNS + ") exceeded!");
-    }
-
-    /**
-     * Makes both players play one turn.
-     */
-    private static void playOneTurn() throws Exception {		
-        playerOne.yourTurnHasBegun();
-        openFire(playerOne);
-        endTheGameIfEitherPlayerIsDefeated();
-
-        if (!gameIsOver) {
-            playerTwo.yourTurnHasBegun();
-            openFire(playerTwo);
-            endTheGameIfEitherPlayerIsDefeated();
-        }
-    }
-
-    private static void endTheGameIfEitherPlayerIsDefeated() {
-        if (playerOne.isDefeated() || playerTwo.isDefeated()) {
-            gameIsOver = true;
-            proclaimTheWinner();
-        }
-    }
-
-    private static void drawTheFleets() {
+    private static void drawTheFleets(Player playerOne, Player playerTwo) {
         // Add empty lines to visually separate the playing field from other messages.
         drawAFancyLine(60, 0, 1);
         System.out.println(
@@ -292,22 +188,12 @@ public class TournamentHandler {
         }
     }
 
-    private static void proclaimTheWinner() {
-        String message = "";
-        if (playerOne.isDefeated() && !playerTwo.isDefeated()) 
-            message = "RULE THE WAVES! " + playerTwo + " has won the battle!";
-        else if (playerTwo.isDefeated() && !playerOne.isDefeated())
-            message = "RULE THE WAVES! " + playerOne + " has won the battle!";
-        else if (playerOne.isDefeated() && playerTwo.isDefeated())
-            message = "Both fleets have been sunk. The fight is a draw!";
-        else if (!playerOne.isDefeated() && !playerTwo.isDefeated())
-            message = "Both fleets have depleted their munitions! The fight is a draw!";
-
-        if (waitAfterEveryTournamentRound)
-            drawTheFleets();
+    private static void proclaimTheWinner(GameResult result) {
+        System.out.println("Player " + result.getPlayerOne() + " started...");
+        drawTheFleets(result.getPlayerOne(), result.getPlayerTwo());
 
         drawAFancyLine(60, 0, 1);
-        System.out.println(message);
+        System.out.println(result);
         drawAFancyLine(60, 0, 1);
     }
 
@@ -326,18 +212,4 @@ public class TournamentHandler {
         for (int i = 0; i < blankSurroundingLines; i++)
             System.out.println();
     }
-
-
-    // ----------------------------------------------------------------------------------------------------
-    // Player Actions
-    // ----------------------------------------------------------------------------------------------------
-
-    private static void openFire (Player attacker) throws Exception {
-        fireAtCoordinates (attacker, attacker.promptToFireShot());
-    }
-
-    private static void fireAtCoordinates(Player attacker, Coordinates coordinates) {
-        Player defender = attacker == playerOne ? playerTwo : playerOne;
-        defender.receiveFireAtCoordinates(attacker, coordinates);
-    }
 }
@@ -0,0 +1,77 @@
+package battleship.handling;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of a tournament between two opponents, numbered 0 and 1. They can be
+ * updated from any number of threads at once: each figure is a LongAdder, which spreads
+ * concurrent additions over several cells instead of making every thread wait for one lock.
+ */
+public class TournamentStatistics {
+
+    private final String[]      names;
+    private final LongAdder[]   victories   = { new LongAdder(), new LongAdder() };
+    private final LongAdder[]   shotsFired  = { new LongAdder(), new LongAdder() };
+    private final LongAdder[]   shotsHit    = { new LongAdder(), new LongAdder() };
+    private final LongAdder     roundsPlayed    = new LongAdder();
+    private final LongAdder     roundsCancelled = new LongAdder();
+
+    public TournamentStatistics(String opponentOneName, String opponentTwoName) {
+        this.names = new String[] { opponentOneName, opponentTwoName };
+    }
+
+    public void recordRound() {
+        roundsPlayed.increment();
+    }
+
+    public void recordCancelledRound() {
+        roundsCancelled.increment();
+    }
+
+    public void recordVictory(int opponent) {
+        victories[opponent].increment();
+    }
+
+    public void recordShots(int opponent, int fired, int hit) {
+        shotsFired[opponent].add(fired);
+        shotsHit[opponent].add(hit);
+    }
+
+    public String getName(int opponent) {
+        return names[opponent];
+    }
+
+    public long getRoundsPlayed() {
+        return roundsPlayed.sum();
+    }
+
+    public long getRoundsCancelled() {
+        return roundsCancelled.sum();
+    }
+
+    public long getVictories(int opponent) {
+        return victories[opponent].sum();
+    }
+
+    public long getShotsFired(int opponent) {
+        return shotsFired[opponent].sum();
+    }
+
+    public long getShotsHit(int opponent) {
+        return shotsHit[opponent].sum();
+    }
+
+    public double getAccuracy(int opponent) {
+        return (double) getShotsHit(opponent) / (double) getShotsFired(opponent);
+    }
+
+    /**
+     * @return the number of the opponent with more victories, or -1 if they are even.
+     */
+    public int getLeader() {
+        long difference = getVictories(0) - getVictories(1);
+        if (difference == 0)
+            return -1;
+        return difference > 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,276 @@
+package battleship.players;
+
+import java.util.Arrays;
+
+import battleship.handling.Settings;
+import battleship.ships.Ship;
+import battleship.tiles.DensityKernel;
+import battleship.tiles.PlacementTable;
+import battleship.tiles.ShipTile;
+import battleship.utilities.BitBoard;
+import battleship.utilities.Coordinates;
+import battleship.utilities.NeighbourTable;
+
+/**
+ * An AI that fires where enemy ships are most likely to be. For every ship length, it keeps
+ * track of which placements (see PlacementTable) are still possible given what it has seen,
+ * and for every cell, how many of those cover it; weighted with the number of ships of each
+ * length still afloat, that is the cell's density.
+ *
+ * The counts are never recomputed from scratch. A miss, or a cell known to be empty or taken
+ * by a sunk ship, rules out exactly the placements covering that cell, which are found in the
+ * placement table's inverse index; only those placements' cells are updated. Since every
+ * placement is ruled out at most once, a whole game costs no more than going through all
+ * placements once.
+ *
+ * Counting from scratch, when starting on a new enemy, is left to a DensityKernel.
+ *
+ * A hit rules nothing out, since any placement through it may be the ship's.
+ *
+ * While hunting, it fires at the unknown cell with the highest density. Once it has hit a
+ * ship that is not yet sunk, it only counts the possible placements through those hits,
+ * and prefers the ones that explain several hits at once.
+ */
+public class DensityHunter extends ComputerOpponent {
+
+    /**
+     * The ship lengths in the enemy fleet, and for each, its placement table and how many such
+     * ships are still afloat.
+     */
+    private final int[]             lengths;
+    private final PlacementTable[]  tables;
+    private final int[]             shipsAfloat;
+
+    /**
+     * For every ship length, which placements are still possible, and for every cell, how many
+     * of those cover it, stored from lengthNumber * BitBoard.CELLS on.
+     */
+    private final boolean[][]       possible;
+    private final int[]             coverage;
+
+    /**
+     * For every cell, the sum over all ship lengths of coverage times ships afloat.
+     */
+    private final long[]            density;
+
+    /**
+     * The cells that no further ship can occupy: misses, sunk ships and their surroundings.
+     */
+    private final long[]            ruledOut;
+    private final long[]            open;
+    private final DensityKernel     kernel;
+
+    private final long[]            unresolvedHits;
+    private final long[]            score;
+
+    public DensityHunter(String name) {
+        super(name);
+        int[] counts = shipCountsByLength();
+        int distinctLengths = 0;
+        for (int count : counts)
+            if (count > 0)
+                distinctLengths++;
+        this.lengths = new int[distinctLengths];
+        this.tables = new PlacementTable[distinctLengths];
+        this.shipsAfloat = new int[distinctLengths];
+        this.possible = new boolean[distinctLengths][];
+        int lengthNumber = 0;
+        for (int length = 1; length <= counts.length; length++) {
+            if (counts[length - 1] == 0)
+                continue;
+            lengths[lengthNumber] = length;
+            tables[lengthNumber] = PlacementTable.forShipLength(length);
+            possible[lengthNumber] = new boolean[tables[lengthNumber].size()];
+            lengthNumber++;
+        }
+        this.coverage = new int[distinctLengths * BitBoard.CELLS];
+        this.density = new long[BitBoard.CELLS];
+        this.ruledOut = BitBoard.create();
+        this.open = BitBoard.create();
+        this.kernel = DensityKernel.create();
+        this.unresolvedHits = BitBoard.create();
+        this.score = new long[BitBoard.CELLS];
+        startCounting();
+    }
+
+    /**
+     * @return how many ships of length 1, 2, ... the enemy fleet has, at index 0, 1, ...
+     */
+    static int[] shipCountsByLength() {
+        return new int[] { Settings.ONE_TILE_SHIPS, Settings.TWO_TILE_SHIPS, Settings.THREE_TILE_SHIPS,
+                Settings.FOUR_TILE_SHIPS, Settings.FIVE_TILE_SHIPS };
+    }
+
+    /**
+     * Makes every placement possible again.
+     */
+    private void startCounting() {
+        int[] counts = shipCountsByLength();
+        Arrays.fill(density, 0L);
+        BitBoard.clearAll(ruledOut);
+        BitBoard.complement(ruledOut, open);
+        for (int lengthNumber = 0; lengthNumber < lengths.length; lengthNumber++) {
+            shipsAfloat[lengthNumber] = counts[lengths[lengthNumber] - 1];
+            Arrays.fill(possible[lengthNumber], true);
+            int offset = lengthNumber * BitBoard.CELLS;
+            kernel.countPlacements(open, lengths[lengthNumber], coverage, offset);
+            for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+                density[cellIndex] += (long) shipsAfloat[lengthNumber] * coverage[offset + cellIndex];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (Density AI)";
+    }
+
+    @Override
+    protected void forgetTheEnemy() {
+        super.forgetTheEnemy();
+        startCounting();
+    }
+
+    @Override
+    public Coordinates promptToFireShot() throws Exception {
+        if (observations.countUnresolvedHits() > 0) {
+            Coordinates target = bestCellThroughUnresolvedHits();
+            if (target != null)
+                return target;
+        }
+        int best = bestUnknownCell(density);
+        return best < 0 ? fireAtRandomTarget() : Coordinates.ofCellIndex(best);
+    }
+
+    /**
+     * Scores every unknown cell by the possible placements through the unresolved hits that
+     * cover it. A placement through k of them counts k * k times, since one ship explaining
+     * several hits is far likelier than several ships lined up by chance.
+     */
+    private Coordinates bestCellThroughUnresolvedHits() {
+        observations.unresolvedHits(unresolvedHits);
+        Arrays.fill(score, 0L);
+        for (int word = 0; word < BitBoard.WORDS; word++) {
+            for (long bits = unresolvedHits[word]; bits != 0; bits &= bits - 1) {
+                int hit = (word << 6) + Long.numberOfTrailingZeros(bits);
+                for (int lengthNumber = 0; lengthNumber < lengths.length; lengthNumber++)
+                    scorePlacementsThrough(hit, lengthNumber);
+            }
+        }
+        int best = bestUnknownCell(score);
+        return best < 0 ? null : Coordinates.ofCellIndex(best);
+    }
+
+    private void scorePlacementsThrough(int hit, int lengthNumber) {
+        if (shipsAfloat[lengthNumber] == 0)
+            return;
+        PlacementTable table = tables[lengthNumber];
+        int length = lengths[lengthNumber];
+        for (int n = 0; n < table.coveringCount(hit); n++) {
+            int placement = table.covering(hit, n);
+            if (!possible[lengthNumber][placement])
+                continue;
+            // Each placement is scored once, from the first unresolved hit it covers.
+            int hitsCovered = 0;
+            int firstHit = -1;
+            for (int i = 0; i < length; i++) {
+                int cellIndex = table.cell(placement, i);
+                if (BitBoard.get(unresolvedHits, cellIndex)) {
+                    hitsCovered++;
+                    if (firstHit < 0)
+                        firstHit = cellIndex;
+                }
+            }
+            if (firstHit != hit)
+                continue;
+            long weight = (long) shipsAfloat[lengthNumber] * hitsCovered * hitsCovered;
+            for (int i = 0; i < length; i++)
+                score[table.cell(placement, i)] += weight;
+        }
+    }
+
+    /**
+     * @return the unknown cell with the highest positive value, picking at random among equals,
+     * or -1 if there is none. Cells already picked for the current salvo are passed over, so
+     * that its further shots go to the next best cells.
+     */
+    protected int bestUnknownCell(long[] values) {
+        int best = -1;
+        long bestValue = 0;
+        int ties = 0;
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++) {
+            long value = values[cellIndex];
+            if (value < bestValue || value == 0 || !observations.isUnknown(cellIndex)
+                    || isPartOfCurrentSalvo(cellIndex))
+                continue;
+            if (value > bestValue) {
+                best = cellIndex;
+                bestValue = value;
+                ties = 1;
+            } else if (random.nextInt(++ties) == 0) {
+                best = cellIndex;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Rules out every placement covering the given cell, updating only those placements' cells.
+     */
+    private void ruleOut(int cellIndex) {
+        if (BitBoard.get(ruledOut, cellIndex))
+            return;
+        BitBoard.set(ruledOut, cellIndex);
+        for (int lengthNumber = 0; lengthNumber < lengths.length; lengthNumber++) {
+            PlacementTable table = tables[lengthNumber];
+            boolean[] stillPossible = possible[lengthNumber];
+            int offset = lengthNumber * BitBoard.CELLS;
+            for (int n = 0; n < table.coveringCount(cellIndex); n++) {
+                int placement = table.covering(cellIndex, n);
+                if (!stillPossible[placement])
+                    continue;
+                stillPossible[placement] = false;
+                for (int i = 0; i < lengths[lengthNumber]; i++) {
+                    int covered = table.cell(placement, i);
+                    coverage[offset + covered]--;
+                    density[covered] -= shipsAfloat[lengthNumber];
+                }
+            }
+        }
+    }
+
+    private void oneShipLessOfLength(int length) {
+        for (int lengthNumber = 0; lengthNumber < lengths.length; lengthNumber++) {
+            if (lengths[lengthNumber] != length || shipsAfloat[lengthNumber] == 0)
+                continue;
+            shipsAfloat[lengthNumber]--;
+            int offset = lengthNumber * BitBoard.CELLS;
+            for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+                density[cellIndex] -= coverage[offset + cellIndex];
+            return;
+        }
+    }
+
+    @Override
+    public void youHaveMissed(Coordinates coordinates) {
+        super.youHaveMissed(coordinates);
+        ruleOut(coordinates.cellIndex());
+    }
+
+    @Override
+    public void youHaveSunkAnEnemyShip(Coordinates lastHit, Ship ship) {
+        super.youHaveSunkAnEnemyShip(lastHit, ship);
+        oneShipLessOfLength(ship.length());
+        for (ShipTile tile : ship.getTiles()) {
+            int cellIndex = BitBoard.cellIndex(tile.getHorizontalIndex(), tile.getVerticalIndex());
+            ruleOut(cellIndex);
+            if (Settings.ALLOW_ADJACENT_SHIP_PLACEMENT)
+                continue;
+            for (int n = 0; n < NeighbourTable.count(cellIndex); n++) {
+                int neighbour = NeighbourTable.get(cellIndex, n);
+                if (observations.isUnknown(neighbour))
+                    recordObservationAtCell(neighbour, ResultObservation.MISS);
+                ruleOut(neighbour);
+            }
+        }
+    }
+}
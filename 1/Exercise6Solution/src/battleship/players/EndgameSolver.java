@@ -0,0 +1,382 @@
+package battleship.players;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import battleship.handling.Settings;
+import battleship.tiles.PlacementTable;
+import battleship.utilities.BitBoard;
+
+/**
+ * An endgame solver plays the end of a game exactly. Once few enough enemy ships are left, and
+ * what the player has seen leaves few enough ways to place them, it lists every such layout and
+ * works out the shot that minimises the expected number of shots still needed to sink them
+ * all, assuming every layout is equally likely. Any computer opponent can use one: tell it
+ * about every ship sunk, and ask it for a shot before choosing one some other way.
+ *
+ * Layouts are bit sets of cells (see BitBoard), put together from the placement tables, and
+ * numbered; a set of layouts is then a single long. The list is kept until another ship is
+ * sunk, so every later observation state, i.e. the layouts that still agree with what has
+ * been seen, is such a set. The expected number of shots is memoised per set, so what was
+ * worked out while looking ahead still holds for the following shots.
+ *
+ * The search only tells hits from misses; that a shot sinks a ship is information it does not
+ * use, so its expectations are, if anything, a little too high. Cells that every remaining
+ * layout occupies will be hits whenever they are fired at, so they are left for last and never
+ * branched on.
+ */
+public class EndgameSolver {
+
+    /**
+     * The solver only starts once no more than this many enemy ships are afloat, and no more
+     * than this many layouts are left for them.
+     */
+    public static final int             MAXIMUM_SHIPS       = 2;
+    public static final int             MAXIMUM_LAYOUTS     = 64;
+
+    /**
+     * How many new sets of layouts a single shot may work out before the solver gives up on it;
+     * what has been worked out by then is kept for the next shot.
+     */
+    private static final int            MAXIMUM_EVALUATIONS = 5000;
+
+    private final int[]                 shipsAfloatByLength;
+    private final int[]                 lengths = new int[MAXIMUM_SHIPS];
+    private int                         shipCount;
+
+    /**
+     * Which ships afloat the layouts were listed for, or -1 if they are not listed.
+     */
+    private int                         listedFleet = -1;
+
+    /**
+     * The layouts; layout number l uses the longs from l * BitBoard.WORDS on. For every layout,
+     * the cells of each of its ships, and how many cells it has; for every cell, which layouts
+     * occupy it, one bit each.
+     */
+    private final long[]                layouts = new long[MAXIMUM_LAYOUTS * BitBoard.WORDS];
+    private final long[]                shipCells = new long[MAXIMUM_LAYOUTS * MAXIMUM_SHIPS * BitBoard.WORDS];
+    private final int[]                 cellCount = new int[MAXIMUM_LAYOUTS];
+    private final long[]                layoutsOccupying = new long[BitBoard.CELLS];
+    private int                         layoutCount;
+
+    /**
+     * For every set of layouts, the expected number of shots to sink the remaining ships,
+     * counting the cells that have already been hit as well.
+     */
+    private final HashMap<Long, Double> expectedShots = new HashMap<Long, Double>();
+    private int                         evaluations;
+    private double                      bestExpectation;
+
+    private final int[]                 chosenPlacements = new int[MAXIMUM_SHIPS];
+    private final long[]                occupiedBeforeShip = new long[(MAXIMUM_SHIPS + 1) * BitBoard.WORDS];
+    private final long[]                blocked = BitBoard.create();
+    private final long[]                hits = BitBoard.create();
+    private final long[]                scratch = BitBoard.create();
+
+    public EndgameSolver() {
+        this.shipsAfloatByLength = DensityHunter.shipCountsByLength();
+    }
+
+    /**
+     * Forgets which enemy ships have been sunk, for a new game or a new enemy.
+     */
+    public void startOver() {
+        System.arraycopy(DensityHunter.shipCountsByLength(), 0, shipsAfloatByLength, 0, shipsAfloatByLength.length);
+        listedFleet = -1;
+    }
+
+    /**
+     * @return the expected number of shots to sink the remaining ships, counting the cells that
+     * have already been hit, after the last cell chosen; and how many sets of layouts it took.
+     */
+    public double expectationOfLastChoice() {
+        return bestExpectation;
+    }
+
+    public int evaluationsOfLastChoice() {
+        return evaluations;
+    }
+
+    public void enemyShipHasBeenSunk(int length) {
+        if (length <= shipsAfloatByLength.length && shipsAfloatByLength[length - 1] > 0)
+            shipsAfloatByLength[length - 1]--;
+    }
+
+    /**
+     * @return the cell to fire at next, or -1 if the game is not far enough along for the solver,
+     * or it took too long to decide.
+     */
+    public int chooseCell(ObservationBoard observations) {
+        long agreeing = layoutsAgreeingWith(observations);
+        if (agreeing == 0)
+            return -1;
+        evaluations = 0;
+        int best = bestShot(agreeing, Double.MAX_VALUE);
+        if (evaluations > MAXIMUM_EVALUATIONS)
+            return -1;
+        if (best >= 0)
+            return best;
+        // Every layout left occupies the same cells, so any of them not hit yet is a hit.
+        int layout = Long.numberOfTrailingZeros(agreeing);
+        for (int word = 0; word < BitBoard.WORDS; word++) {
+            long cells = layouts[layout * BitBoard.WORDS + word] & ~hits[word];
+            if (cells != 0)
+                return (word << 6) + Long.numberOfTrailingZeros(cells);
+        }
+        return -1;
+    }
+
+    /**
+     * Picks a further shot of a salvo, whose earlier shots have not landed yet: the cell that
+     * the most layouts agreeing with the observations occupy, leaving out the hits and the given
+     * cells. Looking ahead like chooseCell() does not help here, since none of the salvo's shots
+     * can depend on how another one went.
+     * @return the cell, or -1 if the game is not far enough along for the solver, or none of the
+     * layouts occupies any other cell.
+     */
+    public int chooseAnotherCellOfSalvo(ObservationBoard observations, long[] salvo) {
+        long agreeing = layoutsAgreeingWith(observations);
+        int best = -1;
+        int mostLayouts = 0;
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++) {
+            if (BitBoard.get(hits, cellIndex) || BitBoard.get(salvo, cellIndex))
+                continue;
+            int layoutsOccupyingCell = Long.bitCount(agreeing & layoutsOccupying[cellIndex]);
+            if (layoutsOccupyingCell > mostLayouts) {
+                best = cellIndex;
+                mostLayouts = layoutsOccupyingCell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Takes in the observations and lists the layouts, unless they are already listed for the
+     * ships afloat.
+     * @return the layouts that agree with the observations, or none if the game is not far
+     * enough along for the solver.
+     */
+    private long layoutsAgreeingWith(ObservationBoard observations) {
+        int fleet = collectRemainingShips();
+        if (fleet < 0)
+            return 0L;
+        observations.copySunk(scratch);
+        observations.copyMisses(blocked);
+        BitBoard.or(blocked, scratch);
+        if (!Settings.ALLOW_ADJACENT_SHIP_PLACEMENT) {
+            BitBoard.neighbours(scratch, hits);
+            BitBoard.or(blocked, hits);
+        }
+        observations.unresolvedHits(hits);
+        if (fleet != listedFleet && !listLayouts(fleet))
+            return 0L;
+        return layoutsAgreeingWithObservations();
+    }
+
+    /**
+     * @return a number telling apart the possible sets of ships afloat if few enough ships are
+     * afloat, or -1. Their lengths are then in lengths, with equal lengths next to each other.
+     */
+    private int collectRemainingShips() {
+        int fleet = 0;
+        shipCount = 0;
+        for (int length = shipsAfloatByLength.length; length >= 1; length--) {
+            for (int i = 0; i < shipsAfloatByLength[length - 1]; i++) {
+                if (shipCount == MAXIMUM_SHIPS)
+                    return -1;
+                lengths[shipCount++] = length;
+                fleet = fleet * (shipsAfloatByLength.length + 1) + length;
+            }
+        }
+        return shipCount > 0 ? fleet : -1;
+    }
+
+    /**
+     * Lists every layout of the remaining ships that agrees with the observations, and forgets
+     * the expectations worked out for the previous list.
+     * @return false if there are more than MAXIMUM_LAYOUTS of them.
+     */
+    private boolean listLayouts(int fleet) {
+        listedFleet = -1;
+        layoutCount = 0;
+        expectedShots.clear();
+        Arrays.fill(occupiedBeforeShip, 0, BitBoard.WORDS, 0L);
+        if (!placeShip(0))
+            return false;
+        Arrays.fill(layoutsOccupying, 0L);
+        for (int layout = 0; layout < layoutCount; layout++) {
+            cellCount[layout] = 0;
+            for (int word = 0; word < BitBoard.WORDS; word++) {
+                long cells = layouts[layout * BitBoard.WORDS + word];
+                cellCount[layout] += Long.bitCount(cells);
+                for (long bits = cells; bits != 0; bits &= bits - 1)
+                    layoutsOccupying[(word << 6) + Long.numberOfTrailingZeros(bits)] |= 1L << layout;
+            }
+        }
+        listedFleet = fleet;
+        return true;
+    }
+
+    private boolean placeShip(int ship) {
+        int occupied = ship * BitBoard.WORDS;
+        if (ship == shipCount) {
+            for (int word = 0; word < BitBoard.WORDS; word++)
+                if ((hits[word] & ~occupiedBeforeShip[occupied + word]) != 0)
+                    return true;
+            if (layoutCount == MAXIMUM_LAYOUTS)
+                return false;
+            System.arraycopy(occupiedBeforeShip, occupied, layouts, layoutCount * BitBoard.WORDS, BitBoard.WORDS);
+            for (int i = 0; i < shipCount; i++) {
+                int offset = (layoutCount * MAXIMUM_SHIPS + i) * BitBoard.WORDS;
+                Arrays.fill(shipCells, offset, offset + BitBoard.WORDS, 0L);
+                PlacementTable.forShipLength(lengths[i]).addCellsTo(chosenPlacements[i], shipCells, offset);
+            }
+            layoutCount++;
+            return true;
+        }
+        PlacementTable table = PlacementTable.forShipLength(lengths[ship]);
+        // Ships of the same length are interchangeable, so each layout is only listed once.
+        int first = ship > 0 && lengths[ship] == lengths[ship - 1] ? chosenPlacements[ship - 1] + 1 : 0;
+        for (int placement = first; placement < table.size(); placement++) {
+            if (!table.avoids(placement, blocked) || !table.isFree(placement, occupiedBeforeShip, occupied))
+                continue;
+            chosenPlacements[ship] = placement;
+            System.arraycopy(occupiedBeforeShip, occupied, occupiedBeforeShip, occupied + BitBoard.WORDS, BitBoard.WORDS);
+            table.addCellsTo(placement, occupiedBeforeShip, occupied + BitBoard.WORDS);
+            if (!placeShip(ship + 1))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the layouts that avoid every blocked cell and cover every unresolved hit, and in
+     * which no ship has been hit everywhere, since it would have been sunk.
+     */
+    private long layoutsAgreeingWithObservations() {
+        long agreeing = 0L;
+        for (int layout = 0; layout < layoutCount; layout++) {
+            boolean agrees = true;
+            for (int word = 0; word < BitBoard.WORDS; word++) {
+                long cells = layouts[layout * BitBoard.WORDS + word];
+                if ((cells & blocked[word]) != 0 || (hits[word] & ~cells) != 0)
+                    agrees = false;
+            }
+            for (int ship = 0; ship < shipCount && agrees; ship++) {
+                int offset = (layout * MAXIMUM_SHIPS + ship) * BitBoard.WORDS;
+                boolean hitEverywhere = true;
+                for (int word = 0; word < BitBoard.WORDS; word++)
+                    if ((shipCells[offset + word] & ~hits[word]) != 0)
+                        hitEverywhere = false;
+                agrees = !hitEverywhere;
+            }
+            if (agrees)
+                agreeing |= 1L << layout;
+        }
+        return agreeing;
+    }
+
+    /**
+     * @return the cells in the given word that some, but not all of the given layouts occupy.
+     */
+    private long uncertainCells(long subset, int word) {
+        long common = -1L;
+        long union = 0L;
+        for (long bits = subset; bits != 0; bits &= bits - 1) {
+            long cells = layouts[Long.numberOfTrailingZeros(bits) * BitBoard.WORDS + word];
+            common &= cells;
+            union |= cells;
+        }
+        return union & ~common;
+    }
+
+    /**
+     * @return the fewest cells of any of the given layouts. Each of them takes a shot, so that
+     * is the least number of shots needed, counting the cells that have already been hit.
+     */
+    private int fewestCells(long subset) {
+        int fewest = Integer.MAX_VALUE;
+        for (long bits = subset; bits != 0; bits &= bits - 1)
+            fewest = Math.min(fewest, cellCount[Long.numberOfTrailingZeros(bits)]);
+        return fewest;
+    }
+
+    /**
+     * @return the expected number of shots to sink the remaining ships if the true layout is one
+     * of the given ones, counting the cells that have already been hit as well. Those are in
+     * every one of the layouts, so that only shifts every expectation by the same amount.
+     */
+    private double expectedShots(long subset) {
+        if (Long.bitCount(subset) == 1)
+            return cellCount[Long.numberOfTrailingZeros(subset)];
+        Double known = expectedShots.get(subset);
+        if (known != null)
+            return known;
+        if (++evaluations > MAXIMUM_EVALUATIONS)
+            return 0;
+        bestShot(subset, Double.MAX_VALUE);
+        if (evaluations > MAXIMUM_EVALUATIONS)
+            return 0;
+        expectedShots.put(subset, bestExpectation);
+        return bestExpectation;
+    }
+
+    /**
+     * Finds the best shot for the given layouts. The cells that split them most evenly are
+     * tried first, and those that cannot beat the best one so far are skipped.
+     * @return the cell, with its expectation left in bestExpectation; or -1 if all layouts occupy
+     * the same cells, which are then all that is left to fire at, or if none beats the bound.
+     */
+    private int bestShot(long subset, double bound) {
+        int layoutsLeft = Long.bitCount(subset);
+        int candidates = 0;
+        int[] cells = new int[BitBoard.CELLS];
+        for (int word = 0; word < BitBoard.WORDS; word++) {
+            for (long bits = uncertainCells(subset, word); bits != 0; bits &= bits - 1) {
+                int cellIndex = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int unevenness = Math.abs(2 * Long.bitCount(subset & layoutsOccupying[cellIndex]) - layoutsLeft);
+                // Sort by unevenness while collecting; the cell index goes into the low digits.
+                int key = unevenness * BitBoard.CELLS + cellIndex;
+                int position = candidates++;
+                for (; position > 0 && cells[position - 1] > key; position--)
+                    cells[position] = cells[position - 1];
+                cells[position] = key;
+            }
+        }
+        if (candidates == 0) {
+            bestExpectation = fewestCells(subset);
+            return -1;
+        }
+
+        int best = -1;
+        for (int i = 0; i < candidates; i++) {
+            int cellIndex = cells[i] % BitBoard.CELLS;
+            long hitLayouts = subset & layoutsOccupying[cellIndex];
+            long missLayouts = subset & ~hitLayouts;
+            double hitShare = (double) Long.bitCount(hitLayouts) / layoutsLeft;
+            double missShare = 1 - hitShare;
+
+            // A hit is one of the cells counted anyway; only a miss is an extra shot.
+            double leastAfterHit = fewestCells(hitLayouts);
+            double leastAfterMiss = 1 + fewestCells(missLayouts);
+            if (hitShare * leastAfterHit + missShare * leastAfterMiss >= bound)
+                continue;
+            double afterHit = expectedShots(hitLayouts);
+            if (evaluations > MAXIMUM_EVALUATIONS)
+                return -1;
+            if (hitShare * afterHit + missShare * leastAfterMiss >= bound)
+                continue;
+            double afterMiss = 1 + expectedShots(missLayouts);
+            if (evaluations > MAXIMUM_EVALUATIONS)
+                return -1;
+            double expectation = hitShare * afterHit + missShare * afterMiss;
+            if (expectation < bound) {
+                bound = expectation;
+                best = cellIndex;
+            }
+        }
+        bestExpectation = bound;
+        return best;
+    }
+}
@@ -30,6 +30,12 @@ public class Human extends Player {
         return super.toString() + " (human)";
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        messages.clear();
+    }
+
     @Override
     public void runPlayerTypeSpecificShipPlacement() throws Exception {
         super.placeShipsRandomly();
@@ -62,7 +68,7 @@ public class Human extends Player {
                 + (Settings.PLAYING_FIELD_VERTICAL_SIZE - 1) + ")");
         try {
             Coordinates coordinates = Input.nextCoordinates();
-            if (resultObservations[coordinates.x][coordinates.y] != null) {
+            if (getResultObservation(coordinates.x, coordinates.y) != null) {
                 // You are now firing at a target that has already been shot.
             }
             System.out.println("Target: " + coordinates + ". FIRE!");
@@ -72,6 +78,16 @@ public class Human extends Player {
         }
     }
 
+    /**
+     * A human is never given a random shot in place of the one they chose; they are asked again.
+     */
+    @Override
+    protected Coordinates replaceShotOfSalvo(Coordinates rejected) throws Exception {
+        System.out.println("Admiral, " + rejected + " is already a target of this salvo or has been fired upon. "
+                + "Choose another target!");
+        return promptToFireShot();
+    }
+
     private Coordinates firingOrderMisunderstood(String reasonForMisunderstanding, int attemptsRemaining)
             throws Exception {
 
@@ -0,0 +1,53 @@
+package battleship.players;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import battleship.tiles.ShotResult;
+import battleship.utilities.Coordinates;
+import battleship.utilities.NeighbourTable;
+
+/**
+ * A simple AI written as a SequentialPlayer: it fires at random cells of one colour of the
+ * checkerboard until it hits something, then works its way along the neighbours of its hits
+ * until the ship has been sunk, and goes back to hunting.
+ */
+public class HuntAndTarget extends SequentialPlayer {
+
+    public HuntAndTarget(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void play() throws Exception {
+        int parity = random.nextInt(2);
+        Deque<Integer> targets = new ArrayDeque<Integer>();
+        while (true) {
+            Coordinates hunt = fireAtRandomTargetWithParity(parity);
+            if (fire(hunt) != ShotResult.HIT)
+                continue;
+
+            // Target: follow the hits until the ship is gone.
+            targets.clear();
+            addNeighboursOf(hunt.cellIndex(), targets);
+            while (!targets.isEmpty()) {
+                int cellIndex = targets.pop();
+                if (getResultObservationAtCell(cellIndex) != null)
+                    continue;
+                ShotResult result = fire(Coordinates.ofCellIndex(cellIndex));
+                if (result == ShotResult.SUNK)
+                    break;
+                if (result == ShotResult.HIT)
+                    addNeighboursOf(cellIndex, targets);
+            }
+        }
+    }
+
+    private void addNeighboursOf(int cellIndex, Deque<Integer> targets) {
+        for (int n = 0; n < NeighbourTable.count(cellIndex); n++) {
+            int neighbour = NeighbourTable.get(cellIndex, n);
+            if (getResultObservationAtCell(neighbour) == null)
+                targets.push(neighbour);
+        }
+    }
+}
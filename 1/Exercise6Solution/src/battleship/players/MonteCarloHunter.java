@@ -0,0 +1,267 @@
+package battleship.players;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import battleship.handling.Settings;
+import battleship.ships.Ship;
+import battleship.tiles.PlacementTable;
+import battleship.tiles.SequentialFleetSampler;
+import battleship.utilities.BitBoard;
+import battleship.utilities.Coordinates;
+
+/**
+ * An AI that estimates where enemy ships are by drawing many complete layouts of the ships
+ * it has not sunk yet, keeping those that agree with everything it has seen, and firing at
+ * the unknown cell that is occupied in most of them.
+ *
+ * A layout agrees with what the player has seen if no ship lies on a miss, a sunk ship or
+ * the cells around it (which DensityHunter records as misses), and every hit that does not
+ * belong to a sunk ship is covered. The first is built into the sampling, through the
+ * SequentialFleetSampler's blocked cells; layouts missing a hit are drawn and thrown away.
+ *
+ * The sampler does not draw all layouts equally likely, so each layout is counted with the
+ * weight sampleWeighted() gives it. The counts then estimate how often each cell is occupied
+ * if every layout agreeing with the observations is equally likely.
+ *
+ * The sampling is split into a fixed number of shares, run as tasks on a ForkJoinPool shared
+ * by all players. Each share has its own sampler, random number generator and counts, so
+ * nothing is shared while sampling and nothing is allocated; the counts are only added up at
+ * the end. A share's sampler is made once, for the whole enemy fleet, and leaves out the ships
+ * as they are sunk; its random numbers are split from the player's whenever the player is
+ * given new ones (see setRandom()), i.e. once per game. How many layouts are drawn, on how
+ * many threads and for how long, is set in the Settings. The number of shares does not depend
+ * on the number of threads, so seeded games are repeatable whatever the number of threads, as
+ * long as there is no time limit (the default), or it is never reached.
+ *
+ * If no layout agreeing with the hits is found within the attempts allowed, or in time, the
+ * player falls back on the placement counts of DensityHunter.
+ */
+public class MonteCarloHunter extends DensityHunter {
+
+    /**
+     * How many layouts a worker may draw and throw away for each one it keeps.
+     */
+    private static final int            ATTEMPTS_PER_SAMPLE = 20;
+
+    /**
+     * Into how many shares the sampling for a shot is split; enough to keep a few threads busy.
+     */
+    private static final int            SHARES              = 16;
+
+    private static final ForkJoinPool   POOL = new ForkJoinPool(Math.max(1, Settings.MONTE_CARLO_THREADS));
+
+    private final int                   samplesPerShot;
+    private final long                  nanosecondsPerShot;
+
+    /**
+     * The lengths of the enemy's ships, longest first, and which of them have been sunk.
+     */
+    private final int[]                 shipLengths;
+    private final boolean[]             isSunk;
+
+    private final long[]                blocked;
+    private final long[]                unresolvedHits;
+    private final double[]              weights;
+    private final long[]                occupied;
+    private final Worker[]              workers;
+    private final RecursiveAction       allWorkers;
+
+    public MonteCarloHunter(String name) {
+        this(name, Settings.MONTE_CARLO_SAMPLES_PER_SHOT, Settings.MONTE_CARLO_MILLISECONDS);
+    }
+
+    /**
+     * @param samplesPerShot how many layouts agreeing with the observations to draw before each shot.
+     * @param millisecondsPerShot the most time to spend on them, or 0 for no limit.
+     */
+    public MonteCarloHunter(String name, int samplesPerShot, long millisecondsPerShot) {
+        super(name);
+        if (samplesPerShot < 1 || millisecondsPerShot < 0)
+            throw new IllegalArgumentException("A Monte Carlo player needs at least one sample and no negative time.");
+        this.samplesPerShot = samplesPerShot;
+        this.nanosecondsPerShot = millisecondsPerShot * 1000000;
+        this.shipLengths = shipLengthsLongestFirst();
+        this.isSunk = new boolean[shipLengths.length];
+        this.blocked = BitBoard.create();
+        this.unresolvedHits = BitBoard.create();
+        this.weights = new double[BitBoard.CELLS];
+        this.occupied = new long[BitBoard.CELLS];
+        this.workers = new Worker[Math.min(SHARES, samplesPerShot)];
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = new Worker(shipLengths, blocked, unresolvedHits);
+        splitRandomForWorkers();
+        this.allWorkers = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(workers);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name + " (Monte Carlo AI)";
+    }
+
+    @Override
+    public void setRandom(SplittableRandom random) {
+        super.setRandom(random);
+        splitRandomForWorkers();
+    }
+
+    private void splitRandomForWorkers() {
+        for (Worker worker : workers)
+            worker.random = random.split();
+    }
+
+    @Override
+    protected void forgetTheEnemy() {
+        super.forgetTheEnemy();
+        // This is called by reset(), which may happen before the fields are set.
+        if (workers == null)
+            return;
+        Arrays.fill(isSunk, false);
+        for (Worker worker : workers)
+            worker.sampler.includeAllShips();
+    }
+
+    @Override
+    public void youHaveSunkAnEnemyShip(Coordinates lastHit, Ship ship) {
+        super.youHaveSunkAnEnemyShip(lastHit, ship);
+        for (int i = 0; i < shipLengths.length; i++) {
+            if (shipLengths[i] == ship.length() && !isSunk[i]) {
+                isSunk[i] = true;
+                for (Worker worker : workers)
+                    worker.sampler.leaveOut(i);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Coordinates promptToFireShot() throws Exception {
+        observations.copySunk(blocked);
+        observations.copyMisses(unresolvedHits);
+        BitBoard.or(blocked, unresolvedHits);
+        observations.unresolvedHits(unresolvedHits);
+
+        long deadline = nanosecondsPerShot > 0 ? System.nanoTime() + nanosecondsPerShot : 0;
+        for (int i = 0; i < workers.length; i++) {
+            int quota = samplesPerShot / workers.length + (i < samplesPerShot % workers.length ? 1 : 0);
+            workers[i].prepare(quota, deadline);
+        }
+        allWorkers.reinitialize();
+        POOL.invoke(allWorkers);
+
+        Arrays.fill(weights, 0.0);
+        int accepted = 0;
+        for (Worker worker : workers) {
+            accepted += worker.accepted;
+            for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+                weights[cellIndex] += worker.weights[cellIndex];
+        }
+        // The weights can be huge; scaled to the largest one, they keep their order as longs.
+        double largest = 0.0;
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            largest = Math.max(largest, weights[cellIndex]);
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            occupied[cellIndex] = largest == 0.0 ? 0L : (long) (weights[cellIndex] / largest * (1L << 52));
+        int best = accepted == 0 ? -1 : bestUnknownCell(occupied);
+        return best < 0 ? super.promptToFireShot() : Coordinates.ofCellIndex(best);
+    }
+
+    /**
+     * Nothing has been observed since the first shot of the salvo, so the layouts drawn for it
+     * still hold; the next best cell among them is taken rather than drawing them all again.
+     */
+    @Override
+    protected Coordinates chooseAnotherShotOfSalvo() throws Exception {
+        int best = bestUnknownCell(occupied);
+        return best < 0 ? super.promptToFireShot() : Coordinates.ofCellIndex(best);
+    }
+
+    private static int[] shipLengthsLongestFirst() {
+        int[] counts = shipCountsByLength();
+        int shipCount = 0;
+        for (int count : counts)
+            shipCount += count;
+        int[] lengths = new int[shipCount];
+        int ship = 0;
+        for (int length = counts.length; length >= 1; length--)
+            for (int i = 0; i < counts[length - 1]; i++)
+                lengths[ship++] = length;
+        return lengths;
+    }
+
+    /**
+     * Draws one share of the layouts and adds up, for every cell, the weights of the
+     * layouts agreeing with the observations that occupy it.
+     */
+    private static class Worker extends RecursiveAction {
+
+        private static final long   serialVersionUID = 1L;
+
+        private final long[]        blocked;
+        private final long[]        unresolvedHits;
+        private final long[]        layout;
+        final double[]              weights;
+
+        final SequentialFleetSampler sampler;
+        private final PlacementTable[] tables;
+        private final int[]         placements;
+
+        SplittableRandom            random;
+        private int                 quota;
+        private long                deadline;
+        int                         accepted;
+
+        Worker(int[] lengths, long[] blocked, long[] unresolvedHits) {
+            this.blocked = blocked;
+            this.unresolvedHits = unresolvedHits;
+            this.layout = BitBoard.create();
+            this.weights = new double[BitBoard.CELLS];
+            this.sampler = new SequentialFleetSampler(lengths);
+            this.tables = new PlacementTable[lengths.length];
+            for (int ship = 0; ship < lengths.length; ship++)
+                tables[ship] = PlacementTable.forShipLength(lengths[ship]);
+            this.placements = new int[lengths.length];
+        }
+
+        void prepare(int quota, long deadline) {
+            this.quota = quota;
+            this.deadline = deadline;
+            reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            accepted = 0;
+            Arrays.fill(weights, 0.0);
+            if (placements.length == 0)
+                return;
+            sampler.setBlockedCells(blocked);
+            int attempts = quota * ATTEMPTS_PER_SAMPLE;
+            for (int attempt = 0; attempt < attempts && accepted < quota; attempt++) {
+                if (deadline != 0 && (attempt & 63) == 63 && System.nanoTime() > deadline)
+                    return;
+                double weight = sampler.sampleWeighted(random, placements);
+                if (weight == 0.0)
+                    continue;
+                BitBoard.clearAll(layout);
+                for (int ship = 0; ship < placements.length; ship++)
+                    if (placements[ship] >= 0)
+                        tables[ship].addCellsTo(placements[ship], layout);
+                if (!BitBoard.isSubsetOf(unresolvedHits, layout))
+                    continue;
+                accepted++;
+                for (int ship = 0; ship < placements.length; ship++)
+                    for (int i = 0; placements[ship] >= 0 && i < tables[ship].shipLength(); i++)
+                        weights[tables[ship].cell(placements[ship], i)] += weight;
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package battleship.players;
+
+import java.util.Arrays;
+
+import battleship.handling.Settings;
+import battleship.utilities.BitBoard;
+import battleship.utilities.BoardSymmetry;
+import battleship.utilities.Zobrist;
+
+/**
+ * An observation board is a player's memory of the enemy fleet: which cells have been hit,
+ * which were missed, and which hits belong to ships that have since been sunk. It stores these
+ * as bit sets (see BitBoard), which keeps it small and lets whole-board questions like "which
+ * unknown cells lie next to a hit that has not been sunk yet?" be answered with a few operations
+ * on longs instead of a walk through every cell.
+ *
+ * The board also keeps a Zobrist hash (see Zobrist) of its cells and of the lengths of the ships
+ * sunk so far, under every BoardSymmetry. The smallest of them is the same for a board and its
+ * mirror images, so it can be used to look up what has been worked out for any of them before,
+ * e.g. in a TranspositionTable; canonicalSymmetry() says which image it is the hash of.
+ */
+public class ObservationBoard {
+
+    private final long[] hits;
+    private final long[] misses;
+    private final long[] sunk;
+
+    /**
+     * Scratch space for the queries below, so that they do not have to allocate.
+     */
+    private final long[] scratch;
+
+    /**
+     * The hash of the cells under each symmetry, and of the sunk ships, counted by length.
+     */
+    private final long[] hashes;
+    private final int[] sunkShipsOfLength;
+    private long sunkShipsHash;
+
+    public ObservationBoard() {
+        this.hits = BitBoard.create();
+        this.misses = BitBoard.create();
+        this.sunk = BitBoard.create();
+        this.scratch = BitBoard.create();
+        this.hashes = new long[BoardSymmetry.COUNT];
+        this.sunkShipsOfLength = new int[Math.max(Settings.PLAYING_FIELD_HORIZONTAL_SIZE,
+                Settings.PLAYING_FIELD_VERTICAL_SIZE) + 1];
+    }
+
+    /**
+     * Forgets every observation.
+     */
+    public void clear() {
+        BitBoard.clearAll(hits);
+        BitBoard.clearAll(misses);
+        BitBoard.clearAll(sunk);
+        Arrays.fill(hashes, 0L);
+        Arrays.fill(sunkShipsOfLength, 0);
+        sunkShipsHash = 0L;
+    }
+
+    /**
+     * @return HIT, MISS, or null if nothing has been observed at the given cell.
+     */
+    public ResultObservation get(int cellIndex) {
+        if (BitBoard.get(hits, cellIndex))
+            return ResultObservation.HIT;
+        if (BitBoard.get(misses, cellIndex))
+            return ResultObservation.MISS;
+        return null;
+    }
+
+    /**
+     * Stores an observation, replacing whatever had been observed at the cell before.
+     * Recording null forgets the cell.
+     */
+    public void record(int cellIndex, ResultObservation observation) {
+        int previousState = hashedState(cellIndex);
+        BitBoard.clear(hits, cellIndex);
+        BitBoard.clear(misses, cellIndex);
+        if (observation == ResultObservation.HIT)
+            BitBoard.set(hits, cellIndex);
+        else if (observation == ResultObservation.MISS)
+            BitBoard.set(misses, cellIndex);
+        else
+            BitBoard.clear(sunk, cellIndex);
+        rehash(cellIndex, previousState);
+    }
+
+    /**
+     * Remembers that the (hit) cell belongs to a ship that has been sunk.
+     */
+    public void markAsSunk(int cellIndex) {
+        int previousState = hashedState(cellIndex);
+        BitBoard.set(sunk, cellIndex);
+        rehash(cellIndex, previousState);
+    }
+
+    /**
+     * Remembers that a ship of the given length has been sunk. This only goes into the hash;
+     * its cells are marked with markAsSunk().
+     */
+    public void recordSunkShip(int length) {
+        if (length < 1 || length >= sunkShipsOfLength.length)
+            return;
+        sunkShipsHash ^= Zobrist.countKey(length, ++sunkShipsOfLength[length]);
+    }
+
+    /**
+     * @return the cell's state as numbered for the Zobrist keys: 0 if unknown, 1 for a miss,
+     * 2 for a hit and 3 for a hit on a sunk ship.
+     */
+    private int hashedState(int cellIndex) {
+        if (BitBoard.get(hits, cellIndex))
+            return BitBoard.get(sunk, cellIndex) ? 3 : 2;
+        return BitBoard.get(misses, cellIndex) ? 1 : 0;
+    }
+
+    private void rehash(int cellIndex, int previousState) {
+        int state = hashedState(cellIndex);
+        if (state == previousState)
+            return;
+        for (int symmetry = 0; symmetry < hashes.length; symmetry++) {
+            if (previousState != 0)
+                hashes[symmetry] ^= Zobrist.cellKey(previousState, symmetry, cellIndex);
+            if (state != 0)
+                hashes[symmetry] ^= Zobrist.cellKey(state, symmetry, cellIndex);
+        }
+    }
+
+    /**
+     * @return the symmetry under which the board's hash is smallest, preferring the lowest number.
+     */
+    public int canonicalSymmetry() {
+        int best = 0;
+        for (int symmetry = 1; symmetry < hashes.length; symmetry++)
+            if (hashes[symmetry] < hashes[best])
+                best = symmetry;
+        return best;
+    }
+
+    /**
+     * @return the hash of the board under its canonical symmetry, including the sunk ships. It is
+     * the same for a board and all its mirror images.
+     */
+    public long canonicalHash() {
+        return hashes[canonicalSymmetry()] ^ sunkShipsHash;
+    }
+
+    public boolean isUnknown(int cellIndex) {
+        return !BitBoard.get(hits, cellIndex) && !BitBoard.get(misses, cellIndex);
+    }
+
+    public boolean isSunk(int cellIndex) {
+        return BitBoard.get(sunk, cellIndex);
+    }
+
+    public int countHits() {
+        return BitBoard.count(hits);
+    }
+
+    public int countMisses() {
+        return BitBoard.count(misses);
+    }
+
+    public int countUnknown() {
+        return BitBoard.CELLS - countHits() - countMisses();
+    }
+
+    /**
+     * @return the number of hits that do not belong to a ship known to be sunk.
+     */
+    public int countUnresolvedHits() {
+        return BitBoard.countDifference(hits, sunk);
+    }
+
+    public void copyHits(long[] target) {
+        BitBoard.copy(hits, target);
+    }
+
+    public void copyMisses(long[] target) {
+        BitBoard.copy(misses, target);
+    }
+
+    public void copySunk(long[] target) {
+        BitBoard.copy(sunk, target);
+    }
+
+    /**
+     * Fills target with every cell that has neither been hit nor missed.
+     */
+    public void unknownCells(long[] target) {
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            scratch[word] = hits[word] | misses[word];
+        BitBoard.complement(scratch, target);
+    }
+
+    /**
+     * Fills target with every hit that does not belong to a ship known to be sunk.
+     */
+    public void unresolvedHits(long[] target) {
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            target[word] = hits[word] & ~sunk[word];
+    }
+
+    /**
+     * Fills target with every unknown cell directly next to a hit that does not belong to a ship
+     * known to be sunk. These are the natural candidates for finishing off a damaged ship.
+     */
+    public void unknownCellsNextToUnresolvedHits(long[] target) {
+        unresolvedHits(scratch);
+        BitBoard.neighbours(scratch, target);
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            target[word] &= ~(hits[word] | misses[word]);
+    }
+}
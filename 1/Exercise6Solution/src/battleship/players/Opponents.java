@@ -0,0 +1,18 @@
+package battleship.players;
+
+/**
+ * The opponents a player can still fire at in a game with more than two players (see
+ * Player.chooseTarget()). They are numbered from 0 up to (but not including) count(), in no
+ * particular order, and the numbering changes whenever a player is eliminated.
+ */
+public interface Opponents {
+
+    public int count();
+
+    public Player get(int index);
+
+    /**
+     * @return whether the given player is still in the game, and not the one asking.
+     */
+    public boolean contains(Player player);
+}
@@ -1,16 +1,22 @@
 package battleship.players;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import battleship.handling.Settings;
 import battleship.ships.Ship;
+import battleship.tiles.BitboardFleet;
 import battleship.tiles.Fleet;
-import battleship.tiles.Fleet.Orientation;
 import battleship.tiles.InvalidFleetSetupException;
+import battleship.tiles.PlacementTable;
+import battleship.tiles.SalvoResult;
+import battleship.tiles.SequentialFleetSampler;
+import battleship.tiles.ShipTile;
+import battleship.tiles.ShotResult;
+import battleship.utilities.BitBoard;
+import battleship.utilities.BoardSymmetry;
 import battleship.utilities.Coordinates;
 import battleship.utilities.StringManipulation;
+import battleship.utilities.TranspositionTable;
 
 /**
  * A player can be either human, i.e. someone giving manual input to 
@@ -23,27 +29,90 @@ public abstract class Player {
     protected Fleet fleet;
 
     /**
-     * This two-dimensional array is used as the player's memory.
-     * The array indices represent coordinates in the enemy's fleet,
-     * and the markers are used to remember whether the tile at those coordinates contained a ship when it was fired at.
-     * When an element of this array is null, that means it has not yet been fired at.
+     * This board is used as the player's memory of the enemy's fleet.
+     * It remembers whether the tile at given coordinates contained a ship when it was fired at.
+     * To read it cell by cell, use getResultObservation(), which returns null for cells not yet fired at.
+     * To change it, use recordObservation().
      */
-    protected ResultObservation[][] resultObservations;
+    protected ObservationBoard observations;
 
     
     protected int enemyStrenghPresumedToRemain;
 
+    /**
+     * The cells of the enemy fleet without an observation, split up by colour
+     * like on a checkerboard: a cell's colour is (x + y) % 2. Each list keeps its cells in its
+     * first untargetedCellCount[colour] elements, in no particular order; positionOfUntargetedCell
+     * tells where each cell is, so that observed cells can be swapped out in constant time.
+     */
+    private final int[][] untargetedCells;
+    private final int[] untargetedCellCount;
+    private final int[] positionOfUntargetedCell;
+
+    /**
+     * The cells picked so far for the salvo being put together, if any (see promptToFireSalvo()).
+     */
+    private final long[] currentSalvo = BitBoard.create();
+
+    /**
+     * The source of every random decision this player makes. It is a fresh, unpredictable
+     * generator unless one is handed in with setRandom(), e.g. to make games reproducible.
+     */
+    protected SplittableRandom random = new SplittableRandom();
+
+    private SequentialFleetSampler fleetSampler;
+    private Ship[] sampledShips;
+    private int[] sampledPlacements;
+
+    /**
+     * The opponent this player fires at in a game with more than two players, or null.
+     */
+    private Player target;
+
     private int shotsFired = 0;
     private int hits = 0;
     private int misses = 0;
 
     public Player(String name) {
         this.name = name;
-        this.fleet = new Fleet(this);
-        this.resultObservations = new ResultObservation[Settings.PLAYING_FIELD_HORIZONTAL_SIZE][Settings.PLAYING_FIELD_VERTICAL_SIZE];
+        this.fleet = Settings.USE_BITBOARD_FLEET ? new BitboardFleet(this) : new Fleet(this);
+        this.observations = new ObservationBoard();
         this.enemyStrenghPresumedToRemain = Settings.defaultStartingFleetStrength();
-        
 
+        this.untargetedCells = new int[2][(BitBoard.CELLS + 1) / 2];
+        this.untargetedCellCount = new int[2];
+        this.positionOfUntargetedCell = new int[BitBoard.CELLS];
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            addUntargetedCell(cellIndex);
+    }
+
+    /**
+     * Puts the player back into the state it was in right after construction, with an empty
+     * fleet and no observations, so that it can play another game without being created anew.
+     * The data structures themselves are kept and cleared. Subclasses that remember anything
+     * about the game must override this, forget it, and call this base function.
+     */
+    public void reset() {
+        fleet.reset();
+        forgetTheEnemy();
+        target = null;
+        shotsFired = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Forgets everything learned about the enemy fleet, as when turning to a new target in a
+     * game with more than two players. Subclasses that remember anything about the enemy fleet
+     * must override this, forget it, and call this base function.
+     */
+    protected void forgetTheEnemy() {
+        observations.clear();
+        enemyStrenghPresumedToRemain = Settings.defaultStartingFleetStrength();
+        untargetedCellCount[0] = 0;
+        untargetedCellCount[1] = 0;
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            addUntargetedCell(cellIndex);
     }
 
     @Override
@@ -83,31 +152,50 @@ public abstract class Player {
 
     protected abstract void runPlayerTypeSpecificShipPlacement() throws Exception;
 
+    /**
+     * Places the whole fleet at once, using a SequentialFleetSampler, so that every legal layout
+     * is (nearly) equally likely; this only fails if the fleet cannot be fitted onto the playing
+     * field at all.
+     */
     protected void placeShipsRandomly() throws Exception {
-        for (Ship ship : fleet.getShips())
-            placeShipRandomly(ship);
+        // The fleet keeps the same ships from game to game, so this is only set up once.
+        if (fleetSampler == null) {
+            sampledShips = fleet.getShips().toArray(new Ship[0]);
+            int[] shipLengths = new int[sampledShips.length];
+            for (int i = 0; i < sampledShips.length; i++)
+                shipLengths[i] = sampledShips[i].length();
+            fleetSampler = new SequentialFleetSampler(shipLengths);
+            sampledPlacements = new int[sampledShips.length];
+        }
+        try {
+            fleetSampler.sampleNearlyUniform(random, sampledPlacements, Settings.FLEET_LAYOUTS_PER_PLACEMENT);
+        } catch (IllegalStateException e) {
+            throw new InvalidFleetSetupException(fleet + " cannot be fitted onto the playing field.");
+        }
+        for (int i = 0; i < sampledShips.length; i++)
+            fleet.placeShip(sampledShips[i], sampledPlacements[i]);
     }
 
+    /**
+     * Places one ship at one of the placements that are still free, each equally likely.
+     * This only fails if there is no free placement left at all.
+     */
     protected void placeShipRandomly(Ship ship) throws Exception {
-        int shipLength = ship.length();
-        int rightBoundsIfHorizontal = Settings.PLAYING_FIELD_HORIZONTAL_SIZE - shipLength;
-        int lowerBoundsIfVertical = Settings.PLAYING_FIELD_VERTICAL_SIZE - shipLength;
-        Random random = new Random();
-
-        for (int attempts = 100; attempts > 0; attempts--) {
-            Orientation orientation = random.nextBoolean() ? Orientation.HORIZONTAL : Orientation.VERTICAL;
-            int x = random.nextInt(orientation == Orientation.HORIZONTAL ? rightBoundsIfHorizontal
-                    : Settings.PLAYING_FIELD_HORIZONTAL_SIZE);
-            int y = random.nextInt(
-                    orientation == Orientation.VERTICAL ? lowerBoundsIfVertical : Settings.PLAYING_FIELD_VERTICAL_SIZE);
-
-            Coordinates shipPlacementCoordinates = new Coordinates(x,y);
-            if (fleet.potentialShipLocationIsFree(shipPlacementCoordinates, shipLength, orientation)) {
-                fleet.placeShip(ship, shipPlacementCoordinates, shipLength, orientation);
+        PlacementTable table = PlacementTable.forShipLength(ship.length());
+        int freePlacements = 0;
+        for (int placement = 0; placement < table.size(); placement++)
+            if (fleet.placementIsFree(table, placement))
+                freePlacements++;
+        if (freePlacements == 0)
+            throw new Exception("Failed to place ship.");
+
+        int pick = random.nextInt(freePlacements);
+        for (int placement = 0; placement < table.size(); placement++) {
+            if (fleet.placementIsFree(table, placement) && pick-- == 0) {
+                fleet.placeShip(ship, placement);
                 return;
             }
         }
-        throw new Exception("Failed to place ship.");
     }
 
     public String generateOneLineOfTheVisualFleetRepresentation(int line, boolean showShips) {
@@ -122,44 +210,274 @@ public abstract class Player {
         return fleet.originalFleetStrength();
     }
 
+    /**
+     * Replaces the player's random number generator. Call this before the ships are placed,
+     * so that the whole game follows from it.
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     public Fleet getFleet() {
         return this.fleet;
     }
 
     public abstract Coordinates promptToFireShot() throws Exception;
 
-    protected Coordinates fireAtRandomTarget() throws Exception {
-        Random random = new Random();
-        Coordinates coordinates;
+    /**
+     * Under the salvo rule, this is asked instead of promptToFireShot() for all shots of a turn
+     * at once. By default, the first shot is the one promptToFireShot() picks, and every further
+     * one is picked by chooseAnotherShotOfSalvo(). While the salvo is put together, the cells
+     * already picked count as targeted (see isPartOfCurrentSalvo()), and a further pick that
+     * repeats one of them, or a cell with an observation, is handed to replaceShotOfSalvo() until
+     * a new cell comes back.
+     * @return between one and the given number of coordinates; fewer than asked for only if
+     * there are not enough cells left to fire at.
+     */
+    public Coordinates[] promptToFireSalvo(int shots) throws Exception {
+        Coordinates[] salvo = new Coordinates[Math.max(1, Math.min(shots, untargetedCellCount()))];
+        int[] picked = new int[salvo.length];
+        int pickedCount = 0;
+        try {
+            for (int shot = 0; shot < salvo.length; shot++) {
+                Coordinates coordinates = shot == 0 ? promptToFireShot() : chooseAnotherShotOfSalvo();
+                if (shot > 0)
+                    while (!isUntargeted(coordinates))
+                        coordinates = replaceShotOfSalvo(coordinates);
+                if (isUntargeted(coordinates)) {
+                    removeUntargetedCell(coordinates.cellIndex());
+                    BitBoard.set(currentSalvo, coordinates.cellIndex());
+                    picked[pickedCount++] = coordinates.cellIndex();
+                }
+                salvo[shot] = coordinates;
+            }
+        } finally {
+            for (int i = 0; i < pickedCount; i++) {
+                addUntargetedCell(picked[i]);
+                BitBoard.clear(currentSalvo, picked[i]);
+            }
+        }
+        return salvo;
+    }
 
-        List<Coordinates> rejectedCoordinates = new ArrayList<Coordinates>();
+    /**
+     * Picks the second and every further shot of a salvo (see promptToFireSalvo()). None of the
+     * salvo has landed yet, so the observations are the same as for the first shot; a player
+     * that picks the best cell for them must skip the cells already picked, as promptToFireShot()
+     * does where it looks at isPartOfCurrentSalvo(), or it keeps picking the same cell.
+     */
+    protected Coordinates chooseAnotherShotOfSalvo() throws Exception {
+        return promptToFireShot();
+    }
 
-        for (int attempts = Settings.PLAYING_FIELD_HORIZONTAL_SIZE * Settings.PLAYING_FIELD_VERTICAL_SIZE * 10; attempts > 0; attempts--) {
-            coordinates = new Coordinates(
-                    random.nextInt(Settings.PLAYING_FIELD_HORIZONTAL_SIZE),
-                    random.nextInt(Settings.PLAYING_FIELD_VERTICAL_SIZE));
+    /**
+     * Picks another shot of a salvo, in place of one that was already part of the salvo or at a
+     * cell with an observation. AIs fire at a random cell that has not been targeted yet; a
+     * subclass that asks a person should ask again instead.
+     */
+    protected Coordinates replaceShotOfSalvo(Coordinates rejected) throws Exception {
+        return fireAtRandomTarget();
+    }
 
-            boolean coordinatesHaveNotYetBeenFiredUpon = resultObservations[coordinates.x][coordinates.y] == null;
-            boolean fireAtTheseCoordinates = coordinatesHaveNotYetBeenFiredUpon;
-            if (!coordinatesHaveNotYetBeenFiredUpon) {
-                rejectedCoordinates.add(coordinates);
-                attempts--;
-            }
-            if (fireAtTheseCoordinates)
-                return coordinates;
+    /**
+     * @return whether the cell has already been picked for the salvo being put together. Outside
+     * of promptToFireSalvo(), no cell is.
+     */
+    protected boolean isPartOfCurrentSalvo(int cellIndex) {
+        return BitBoard.get(currentSalvo, cellIndex);
+    }
+
+    /**
+     * Copies the cells already picked for the salvo being put together into the given board.
+     */
+    protected void copyCurrentSalvo(long[] target) {
+        BitBoard.copy(currentSalvo, target);
+    }
+
+    private boolean isUntargeted(Coordinates coordinates) {
+        return Coordinates.coordinateIsWithinPlayingField(coordinates.x, coordinates.y)
+                && isUntargeted(coordinates.cellIndex());
+    }
+
+    /**
+     * In a game with more than two players, this is asked before promptToFireShot() which
+     * opponent to fire at. By default, a player sticks to their target until it has been
+     * eliminated, and then picks a new one at random, forgetting what they knew about the old one.
+     */
+    public Player chooseTarget(Opponents opponents) {
+        if (target == null || !opponents.contains(target)) {
+            if (target != null)
+                forgetTheEnemy();
+            target = opponents.get(random.nextInt(opponents.count()));
         }
-        throw new Exception("Attempts depleted, no firing solution found.");
+        return target;
+    }
+
+    /**
+     * @return any cell without an observation, each equally likely.
+     */
+    protected Coordinates fireAtRandomTarget() throws Exception {
+        int untargeted = untargetedCellCount[0] + untargetedCellCount[1];
+        if (untargeted == 0)
+            throw new Exception("Attempts depleted, no firing solution found.");
+        int pick = random.nextInt(untargeted);
+        int colour = pick < untargetedCellCount[0] ? 0 : 1;
+        return Coordinates.ofCellIndex(untargetedCells[colour][colour == 0 ? pick : pick - untargetedCellCount[0]]);
+    }
+
+    /**
+     * Like fireAtRandomTarget, but only picks cells with (x + y) % 2 == parity, as long as
+     * there are any left. Since every ship is at least two cells long (unless the Settings
+     * say otherwise), searching one colour of the checkerboard is enough to find them all.
+     */
+    protected Coordinates fireAtRandomTargetWithParity(int parity) throws Exception {
+        if (untargetedCellCount[parity] == 0)
+            return fireAtRandomTarget();
+        return Coordinates.ofCellIndex(untargetedCells[parity][random.nextInt(untargetedCellCount[parity])]);
+    }
+
+    /**
+     * @return the number of cells in the enemy fleet that have no observation yet.
+     */
+    public int untargetedCellCount() {
+        return untargetedCellCount[0] + untargetedCellCount[1];
+    }
+
+    /**
+     * @return what has been observed at these coordinates in the enemy fleet:
+     * HIT, MISS, or null if they have not yet been fired at.
+     * @throws ArrayIndexOutOfBoundsException if the coordinates are outside the playing field.
+     */
+    protected ResultObservation getResultObservation(int x, int y) {
+        return observations.get(checkedCellIndex(x, y));
+    }
+
+    protected ResultObservation getResultObservation(Coordinates coordinates) {
+        return getResultObservation(coordinates.x, coordinates.y);
     }
 
+    protected ResultObservation getResultObservationAtCell(int cellIndex) {
+        return observations.get(cellIndex);
+    }
+
+    /**
+     * Stores an observation about the enemy fleet. Use this rather than writing into
+     * the observation board directly, so that the player's index of untargeted cells stays correct.
+     */
+    protected void recordObservation(Coordinates coordinates, ResultObservation observation) {
+        recordObservationAtCell(checkedCellIndex(coordinates.x, coordinates.y), observation);
+    }
+
+    protected void recordObservationAtCell(int cellIndex, ResultObservation observation) {
+        boolean wasUnknown = observations.isUnknown(cellIndex);
+        observations.record(cellIndex, observation);
+        if (wasUnknown && observation != null)
+            removeUntargetedCell(cellIndex);
+        else if (!wasUnknown && observation == null)
+            addUntargetedCell(cellIndex);
+    }
+
+    /**
+     * Looks up the cell stored in the table for the current observations, or for any mirror
+     * image of them (see ObservationBoard.canonicalHash()), turned back to match this board.
+     * @return the cell, or -1 if none has been stored, or it is not unknown here.
+     */
+    protected int recallShot(TranspositionTable table) {
+        TranspositionTable.Entry entry = table.get(observations.canonicalHash());
+        if (entry == null || entry.cellIndex() < 0)
+            return -1;
+        int cellIndex = BoardSymmetry.mapBack(observations.canonicalSymmetry(), entry.cellIndex());
+        return observations.isUnknown(cellIndex) ? cellIndex : -1;
+    }
+
+    /**
+     * @return the value stored in the table for the current observations, or NaN if there is none.
+     */
+    protected double recallValue(TranspositionTable table) {
+        TranspositionTable.Entry entry = table.get(observations.canonicalHash());
+        return entry == null ? Double.NaN : entry.value();
+    }
+
+    /**
+     * Stores a decision and its value for the current observations, for this or any other player
+     * sharing the table to recall, on this board or a mirror image of it.
+     * @param cellIndex the cell chosen, or -1 to only store the value.
+     * @param work how much it took to decide; see TranspositionTable.put().
+     */
+    protected void rememberShot(TranspositionTable table, int cellIndex, double value, int work) {
+        int canonicalCell = cellIndex < 0 ? -1 : BoardSymmetry.map(observations.canonicalSymmetry(), cellIndex);
+        table.put(observations.canonicalHash(), canonicalCell, value, work);
+    }
+
+    private void addUntargetedCell(int cellIndex) {
+        int colour = colourOf(cellIndex);
+        positionOfUntargetedCell[cellIndex] = untargetedCellCount[colour];
+        untargetedCells[colour][untargetedCellCount[colour]++] = cellIndex;
+    }
+
+    private boolean isUntargeted(int cellIndex) {
+        int colour = colourOf(cellIndex);
+        int position = positionOfUntargetedCell[cellIndex];
+        return position < untargetedCellCount[colour] && untargetedCells[colour][position] == cellIndex;
+    }
+
+    private void removeUntargetedCell(int cellIndex) {
+        int colour = colourOf(cellIndex);
+        int position = positionOfUntargetedCell[cellIndex];
+        int last = untargetedCells[colour][--untargetedCellCount[colour]];
+        untargetedCells[colour][position] = last;
+        positionOfUntargetedCell[last] = position;
+    }
+
+    private static int colourOf(int cellIndex) {
+        return (BitBoard.xOf(cellIndex) + BitBoard.yOf(cellIndex)) & 1;
+    }
+
+
     public void receiveFireAtCoordinates (Player attacker, Coordinates coordinates){
         fleet.receiveFireAtCoordinates(attacker, coordinates);
     }
 
+    public void receiveFireAtCell(Player attacker, int cellIndex) {
+        fleet.receiveFireAtCell(attacker, cellIndex);
+    }
+
+    public SalvoResult receiveSalvo(Player attacker, Coordinates[] shots) {
+        return fleet.receiveSalvo(attacker, shots);
+    }
+
+    /**
+     * Resolves a shot in a game with more than two players, where others may already have fired
+     * at the cell. If so, but the attacker has not, the attacker still learns what is there, and
+     * the shot counts as a miss, hit or sinking for them as if it had been the first; this player
+     * is told that the enemy keeps firing at the same spot. A ship someone else has sunk is
+     * reported sunk to each attacker only once, as that marks all of its cells as hits for them,
+     * so that further shots at it are repeats. Otherwise, this is just receiveFireAtCell().
+     */
+    public void receiveSharedFireAtCell(Player attacker, int cellIndex) {
+        if (!fleet.cellHasBeenShotAt(cellIndex) || attacker.getResultObservationAtCell(cellIndex) != null) {
+            fleet.receiveFireAtCell(attacker, cellIndex);
+            return;
+        }
+        Coordinates coordinates = Coordinates.ofCellIndex(cellIndex);
+        Ship ship = fleet.getShipAtCoordinates(coordinates);
+        if (ship == null) {
+            attacker.youHaveMissed(coordinates);
+            theEnemyKeepsFiringAtNothing(attacker, coordinates);
+        } else if (ship.isSunk()) {
+            attacker.youHaveSunkAnEnemyShip(coordinates, ship);
+            theEnemyKeepsFiringAtASunkShip(attacker, coordinates, ship);
+        } else {
+            attacker.youHaveHitYourTarget(coordinates);
+            theEnemyKeepsFiringAtTheSameHole(attacker, coordinates, ship);
+        }
+    }
+
     public String createOneLineOfTheVisualRepresentationOfObservedResults (int lineNumber) {
         // Start each line with its number
         String line = lineNumber + "" + StringManipulation.TAB;
         for (int x = 0; x < Settings.PLAYING_FIELD_HORIZONTAL_SIZE; x++) 
-            line += resultObservations[x][lineNumber] + StringManipulation.TAB;
+            line += getResultObservation(x, lineNumber) + StringManipulation.TAB;
         return line;
     }
 
@@ -168,33 +486,132 @@ public abstract class Player {
     // --------------------------------------------------
     public abstract void yourTurnHasBegun();
 
+    /**
+     * Called once a game is over, whoever won. Players that hold on to resources while
+     * playing, like a SequentialPlayer's thread, release them here.
+     */
+    public void theGameHasEnded() {
+    }
+
     public abstract void youHaveBeenMissed(Coordinates coordinates);
 
     public abstract void youHaveBeenHit(Coordinates coordinates, Ship ship);
 
     public abstract void yourShipHasBeenSunk(Coordinates lastHit, Ship ship);
 
+    /*
+     * The fleet reports shots through the following functions, which also tell who fired.
+     * In a game between two players that is always the opponent, so by default they simply
+     * pass the shot on to the functions above and below; players in games with more than two
+     * players can override them to keep track of who is firing at them.
+     */
+
+    public void youHaveBeenMissed(Player attacker, Coordinates coordinates) {
+        youHaveBeenMissed(coordinates);
+    }
+
+    public void youHaveBeenHit(Player attacker, Coordinates coordinates, Ship ship) {
+        youHaveBeenHit(coordinates, ship);
+    }
+
+    public void yourShipHasBeenSunk(Player attacker, Coordinates lastHit, Ship ship) {
+        yourShipHasBeenSunk(lastHit, ship);
+    }
+
+    public void theEnemyKeepsFiringAtASunkShip(Player attacker, Coordinates lastHit, Ship ship) {
+        theEnemyKeepsFiringAtASunkShip(lastHit, ship);
+    }
+
+    public void theEnemyKeepsFiringAtTheSameHole(Player attacker, Coordinates lastHit, Ship ship) {
+        theEnemyKeepsFiringAtTheSameHole(lastHit, ship);
+    }
+
+    public void theEnemyKeepsFiringAtNothing(Player attacker, Coordinates lastHit) {
+        theEnemyKeepsFiringAtNothing(lastHit);
+    }
+
 
     public void youHaveMissed(Coordinates coordinates) {
-        this.resultObservations[coordinates.x][coordinates.y] = ResultObservation.MISS;
+        recordObservation(coordinates, ResultObservation.MISS);
         shotsFired ++;
         misses ++;
     }
 
     public void youHaveHitYourTarget(Coordinates coordinates) {
         this.enemyStrenghPresumedToRemain -= 1;
-        this.resultObservations[coordinates.x][coordinates.y] = ResultObservation.HIT;
+        recordObservation(coordinates, ResultObservation.HIT);
         shotsFired ++;
         hits ++;
     }
 
+    /**
+     * Records the sinking of an enemy ship. Between two players, all of its cells but the last hit
+     * are already known to be hits; with more players, someone else may have sunk the ship, so
+     * every cell of it not yet known to be a hit is recorded as one here, and the sinking is only
+     * ever reported once per ship.
+     */
     public void youHaveSunkAnEnemyShip(Coordinates lastHit, Ship ship) {
-        this.enemyStrenghPresumedToRemain -= 1;
-        this.resultObservations[lastHit.x][lastHit.y] = ResultObservation.HIT;
+        for (ShipTile tile : ship.getTiles()) {
+            int cellIndex = BitBoard.cellIndex(tile.getHorizontalIndex(), tile.getVerticalIndex());
+            if (observations.get(cellIndex) != ResultObservation.HIT) {
+                this.enemyStrenghPresumedToRemain -= 1;
+                recordObservationAtCell(cellIndex, ResultObservation.HIT);
+            }
+            observations.markAsSunk(cellIndex);
+        }
+        observations.recordSunkShip(ship.length());
         shotsFired ++;
         hits ++;
     }
 
+    /**
+     * Tells this player how all shots of their salvo went. By default, each shot is passed on
+     * to the function above or below that would have been called for it on its own.
+     */
+    public void yourSalvoHasLanded(SalvoResult salvo) {
+        for (int shot = 0; shot < salvo.size(); shot++) {
+            Coordinates coordinates = salvo.coordinates(shot);
+            Ship ship = salvo.ship(shot);
+            ShotResult result = salvo.result(shot);
+            if (result == ShotResult.MISS)
+                youHaveMissed(coordinates);
+            else if (result == ShotResult.HIT)
+                youHaveHitYourTarget(coordinates);
+            else if (result == ShotResult.SUNK)
+                youHaveSunkAnEnemyShip(coordinates, ship);
+            else if (ship == null)
+                youKeepFiringAtNothing(coordinates);
+            else if (salvo.shipWasAlreadySunk(shot))
+                youKeepFiringAtASunkShip(coordinates, ship);
+            else
+                youKeepFiringAtTheSameHole(coordinates);
+        }
+    }
+
+    /**
+     * Tells this player how the attacker's salvo at their fleet went. By default, each shot is
+     * passed on to the function that would have been called for it on its own.
+     */
+    public void yourFleetHasBeenHitByASalvo(Player attacker, SalvoResult salvo) {
+        for (int shot = 0; shot < salvo.size(); shot++) {
+            Coordinates coordinates = salvo.coordinates(shot);
+            Ship ship = salvo.ship(shot);
+            ShotResult result = salvo.result(shot);
+            if (result == ShotResult.MISS)
+                youHaveBeenMissed(attacker, coordinates);
+            else if (result == ShotResult.HIT)
+                youHaveBeenHit(attacker, coordinates, ship);
+            else if (result == ShotResult.SUNK)
+                yourShipHasBeenSunk(attacker, coordinates, ship);
+            else if (ship == null)
+                theEnemyKeepsFiringAtNothing(attacker, coordinates);
+            else if (salvo.shipWasAlreadySunk(shot))
+                theEnemyKeepsFiringAtASunkShip(attacker, coordinates, ship);
+            else
+                theEnemyKeepsFiringAtTheSameHole(attacker, coordinates, ship);
+        }
+    }
+
     public abstract void youKeepFiringAtASunkShip(Coordinates lastHit, Ship ship);
 
     public abstract void youKeepFiringAtTheSameHole(Coordinates lastHit);
@@ -206,4 +623,14 @@ public abstract class Player {
     public abstract void theEnemyKeepsFiringAtTheSameHole(Coordinates lastHit, Ship ship);
 
     public abstract void theEnemyKeepsFiringAtNothing(Coordinates lastHit);
+
+    /**
+     * Converts coordinates into a cell index, failing the same way as an array of observations
+     * would for coordinates outside the playing field, rather than reading some other cell.
+     */
+    private static int checkedCellIndex(int x, int y) throws ArrayIndexOutOfBoundsException {
+        if (!Coordinates.coordinateIsWithinPlayingField(x, y))
+            throw new ArrayIndexOutOfBoundsException("Invalid coordinate (" + x + ", " + y + ").");
+        return BitBoard.cellIndex(x, y);
+    }
 }
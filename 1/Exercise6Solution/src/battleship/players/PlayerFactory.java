@@ -0,0 +1,17 @@
+package battleship.players;
+
+/**
+ * A player factory creates players of one particular type. Factories for the players in
+ * this package are built into the PlayerRegistry; other AIs can be plugged in by listing
+ * their factory in META-INF/services/battleship.players.PlayerFactory, which makes
+ * java.util.ServiceLoader find them.
+ */
+public interface PlayerFactory {
+
+    /**
+     * @return the name the player type is looked up by, e.g. "TheBlackPearl".
+     */
+    String getPlayerTypeName();
+
+    Player createPlayer(String name);
+}
@@ -0,0 +1,136 @@
+package battleship.players;
+
+import java.lang.reflect.Constructor;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The player registry knows how to create every type of player by name, without reflection:
+ * the types in this package are registered here, and further ones are found through
+ * ServiceLoader (see PlayerFactory) or can be registered at runtime.
+ */
+public class PlayerRegistry {
+
+    private static final Map<String, PlayerFactory> FACTORIES = new LinkedHashMap<String, PlayerFactory>();
+
+    static {
+        register(new ResettablePlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return "ComputerOpponent";
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                return new ComputerOpponent(name);
+            }
+        });
+        register(new ResettablePlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return "TheBlackPearl";
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                return new TheBlackPearl(name);
+            }
+        });
+        register(new ResettablePlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return "HuntAndTarget";
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                return new HuntAndTarget(name);
+            }
+        });
+        register(new ResettablePlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return "DensityHunter";
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                return new DensityHunter(name);
+            }
+        });
+        register(new ResettablePlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return "MonteCarloHunter";
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                return new MonteCarloHunter(name);
+            }
+        });
+        register(new ResettablePlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return "Human";
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                return new Human(name);
+            }
+        });
+        for (PlayerFactory factory : ServiceLoader.load(PlayerFactory.class))
+            register(factory);
+    }
+
+    public static synchronized void register(PlayerFactory factory) {
+        FACTORIES.put(factory.getPlayerTypeName(), factory);
+    }
+
+    /**
+     * @param typeName a registered type name, or the name of a player class; class names without
+     * a package are looked up in battleship.players.
+     * @throws ClassNotFoundException if there is neither a registered type nor a player class of that name.
+     */
+    public static synchronized PlayerFactory factoryFor(String typeName) throws ClassNotFoundException {
+        PlayerFactory factory = FACTORIES.get(typeName);
+        if (factory == null) {
+            factory = reflectiveFactoryFor(typeName);
+            register(factory);
+        }
+        return factory;
+    }
+
+    /**
+     * Player classes that are not registered are still supported, as long as they have a public
+     * constructor taking the player's name. The constructor is only looked up once.
+     */
+    private static PlayerFactory reflectiveFactoryFor(final String typeName) throws ClassNotFoundException {
+        String className = typeName.indexOf('.') < 0 ? "battleship.players." + typeName : typeName;
+        final Constructor<? extends Player> constructor;
+        try {
+            constructor = Class.forName(className).asSubclass(Player.class).getConstructor(String.class);
+        } catch (NoSuchMethodException e) {
+            throw new ClassNotFoundException(className + " has no public constructor taking a name.", e);
+        } catch (ClassCastException e) {
+            throw new ClassNotFoundException(className + " is not a player.", e);
+        }
+        return new PlayerFactory() {
+            @Override
+            public String getPlayerTypeName() {
+                return typeName;
+            }
+
+            @Override
+            public Player createPlayer(String name) {
+                try {
+                    return constructor.newInstance(name);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not create a " + typeName + ".", e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package battleship.players;
+
+/**
+ * A player factory whose players forget everything about a game when they are reset (see
+ * Player.reset()), so that one player may play many games in a row. Tournaments only reuse
+ * players made by such factories; everybody else gets a newly created player for every game,
+ * since an AI that keeps what it learns in fields of its own, without overriding
+ * forgetTheEnemy(), would otherwise carry it over into the next game.
+ *
+ * The factories for the players in this package are all of this kind.
+ */
+public interface ResettablePlayerFactory extends PlayerFactory {
+}
@@ -0,0 +1,204 @@
+package battleship.players;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import battleship.ships.Ship;
+import battleship.tiles.SalvoResult;
+import battleship.tiles.ShotResult;
+import battleship.utilities.Coordinates;
+import battleship.utilities.LightweightThreads;
+
+/**
+ * A sequential player lets an AI be written as straight-line code instead of reacting to
+ * callbacks: play() simply loops, calling fire() for every shot, and fire() returns how the
+ * shot went. Behind the scenes, play() runs on a thread of its own (see LightweightThreads),
+ * which is paused inside fire() until the game asks for the next shot. The game and play()
+ * never run at the same time, so play() may use the player's fields freely.
+ *
+ * Under the salvo rule, play() picks the first shot of each salvo and is told how that one
+ * went; the rest of the salvo is fired at random.
+ *
+ * When the game is over or the player is reset, play() is stopped by an error thrown out of
+ * fire(); it should not catch Errors.
+ *
+ * Running many sequential players at once, such as hundreds of thousands of games in parallel,
+ * takes Java 21 or later, whose virtual threads cost little more than the objects on their
+ * stacks. On older Javas, every sequential player in a game holds a platform thread with a
+ * stack of its own, so a few thousand at once are the practical limit, and every shot takes two
+ * hand-overs between threads. AIs that have to run at that scale there should react to the
+ * callbacks of Player instead, which need no thread of their own.
+ */
+public abstract class SequentialPlayer extends ComputerOpponent {
+
+    private static final Object START       = new Object();
+    private static final Object CANCEL      = new Object();
+    private static final Object FINISHED    = new Object();
+
+    private final SynchronousQueue<Object> toPlay = new SynchronousQueue<Object>();
+    private final SynchronousQueue<Object> toGame = new SynchronousQueue<Object>();
+    private Thread  playThread;
+
+    private ShotResult  lastResult;
+    private Ship        lastSunkShip;
+
+    public SequentialPlayer(String name) {
+        super(name);
+    }
+
+    /**
+     * Plays one game, calling fire() for every shot, until it is stopped.
+     */
+    protected abstract void play() throws Exception;
+
+    /**
+     * Fires at the given coordinates and waits until the game has resolved the shot.
+     */
+    protected final ShotResult fire(Coordinates coordinates) {
+        try {
+            toGame.put(coordinates);
+            Object reply = toPlay.take();
+            if (reply == CANCEL)
+                throw new PlayCancelled();
+            return (ShotResult) reply;
+        } catch (InterruptedException e) {
+            throw new PlayCancelled();
+        }
+    }
+
+    /**
+     * @return the ship sunk by the last shot, if that is what fire() reported.
+     */
+    protected Ship lastSunkShip() {
+        return lastSunkShip;
+    }
+
+    @Override
+    public Coordinates promptToFireShot() throws Exception {
+        if (playThread == null) {
+            playThread = LightweightThreads.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    runPlay();
+                }
+            }, this + " playing");
+            playThread.start();
+            toPlay.put(START);
+        } else {
+            toPlay.put(lastResult);
+        }
+        Object reply = toGame.take();
+        if (reply instanceof Coordinates)
+            return (Coordinates) reply;
+        stopPlaying();
+        if (reply instanceof Throwable)
+            throw new Exception(this + " has failed.", (Throwable) reply);
+        throw new Exception(this + " has stopped firing.");
+    }
+
+    private void runPlay() {
+        Object outcome = FINISHED;
+        try {
+            if (toPlay.take() == CANCEL)
+                return;
+            play();
+        } catch (PlayCancelled e) {
+            return;
+        } catch (InterruptedException e) {
+            return;
+        } catch (Throwable t) {
+            outcome = t;
+        }
+        try {
+            toGame.put(outcome);
+        } catch (InterruptedException e) {
+            // Nobody is waiting any more.
+        }
+    }
+
+    /**
+     * Stops play(), wherever it is waiting, and waits for its thread to end.
+     */
+    private void stopPlaying() throws InterruptedException {
+        if (playThread == null)
+            return;
+        while (playThread.isAlive() && !toPlay.offer(CANCEL, 10, TimeUnit.MILLISECONDS))
+            ;
+        playThread.join();
+        playThread = null;
+    }
+
+    @Override
+    public void theGameHasEnded() {
+        try {
+            stopPlaying();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void reset() {
+        theGameHasEnded();
+        super.reset();
+        lastResult = null;
+        lastSunkShip = null;
+    }
+
+    @Override
+    protected Coordinates chooseAnotherShotOfSalvo() throws Exception {
+        return fireAtRandomTarget();
+    }
+
+    /**
+     * play() only fired the first shot of the salvo, so that is the one it is told about.
+     */
+    @Override
+    public void yourSalvoHasLanded(SalvoResult salvo) {
+        super.yourSalvoHasLanded(salvo);
+        lastResult = salvo.result(0);
+        if (lastResult == ShotResult.SUNK)
+            lastSunkShip = salvo.ship(0);
+    }
+
+    @Override
+    public void youHaveMissed(Coordinates coordinates) {
+        super.youHaveMissed(coordinates);
+        lastResult = ShotResult.MISS;
+    }
+
+    @Override
+    public void youHaveHitYourTarget(Coordinates coordinates) {
+        super.youHaveHitYourTarget(coordinates);
+        lastResult = ShotResult.HIT;
+    }
+
+    @Override
+    public void youHaveSunkAnEnemyShip(Coordinates lastHit, Ship ship) {
+        super.youHaveSunkAnEnemyShip(lastHit, ship);
+        lastResult = ShotResult.SUNK;
+        lastSunkShip = ship;
+    }
+
+    @Override
+    public void youKeepFiringAtASunkShip(Coordinates lastHit, Ship ship) {
+        lastResult = ShotResult.REPEATED;
+    }
+
+    @Override
+    public void youKeepFiringAtTheSameHole(Coordinates lastHit) {
+        lastResult = ShotResult.REPEATED;
+    }
+
+    @Override
+    public void youKeepFiringAtNothing(Coordinates lastHit) {
+        lastResult = ShotResult.REPEATED;
+    }
+
+    /**
+     * Thrown out of fire() to stop play(). It is an Error so that play()'s own exception handling lets it pass.
+     */
+    private static class PlayCancelled extends Error {
+        private static final long serialVersionUID = 4218463072911402771L;
+    }
+}
@@ -2,13 +2,16 @@ package battleship.players;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import battleship.handling.Settings;
 import battleship.ships.Ship;
+import battleship.tiles.DensityKernel;
 import battleship.tiles.Fleet.Orientation;
 import battleship.tiles.ShipTile;
+import battleship.utilities.BitBoard;
 import battleship.utilities.Coordinates;
+import battleship.utilities.NeighbourTable;
+import battleship.utilities.TranspositionTable;
 
 /**
  * This class lets you make your own AI for a computer-controlled player.
@@ -24,6 +27,19 @@ public class TheBlackPearl extends ComputerOpponent {
     
     private Orientation layoutOrientation[][];
     private Coordinates layoutCoordinates[][];
+    
+    //plays the last ships exactly, once there are few enough ways left to place them
+    private final EndgameSolver endgame;
+    //the cells already picked for the salvo being put together, for the endgame solver to leave out
+    private final long[] salvoCells = BitBoard.create();
+    //while hunting, fire where most of the ships afloat still fit, recounted for every shot
+    private final DensityKernel densityKernel = DensityKernel.create();
+    private final int[] shipsAfloatByLength = DensityHunter.shipCountsByLength();
+    private final long[] openCells = BitBoard.create();
+    private final long[] sunkCells = BitBoard.create();
+    private final long[] density = new long[BitBoard.CELLS];
+    //the endgame decisions of all black pearls, if Settings.USE_TRANSPOSITION_TABLES allows sharing them
+    private static final TranspositionTable ENDGAME_DECISIONS = new TranspositionTable(1 << 16);
 
     
     /**
@@ -36,6 +52,7 @@ public class TheBlackPearl extends ComputerOpponent {
         this.rejectedCoordinates = new ArrayList<Coordinates>();
         
         this.lastHitted    = new Coordinates(0,0);
+        this.endgame = new EndgameSolver();
         this.layoutOrientation = new Orientation[][] {
         	{Orientation.HORIZONTAL,Orientation.HORIZONTAL,Orientation.VERTICAL,Orientation.HORIZONTAL,Orientation.VERTICAL,
         		Orientation.HORIZONTAL,Orientation.HORIZONTAL,Orientation.HORIZONTAL,Orientation.VERTICAL,Orientation.HORIZONTAL},
@@ -60,6 +77,16 @@ public class TheBlackPearl extends ComputerOpponent {
         return name + " (Custom AI)";
     }
 
+    @Override
+    protected void forgetTheEnemy() {
+        super.forgetTheEnemy();
+        this.lastFireHitted = false;
+        this.rejectedCoordinates.clear();
+        this.lastHitted = Coordinates.of(0, 0);
+        this.endgame.startOver();
+        System.arraycopy(DensityHunter.shipCountsByLength(), 0, shipsAfloatByLength, 0, shipsAfloatByLength.length);
+    }
+
     // ------------------------------------------------------------------------------------------------
     // In runPlayerTypeSpecificShipPlacement() you can change how the AI places its ships.
     // ------------------------------------------------------------------------------------------------
@@ -86,14 +113,12 @@ public class TheBlackPearl extends ComputerOpponent {
     	int placedShip4 = 1;
     	int placedShip3 = 3;
     	int placedShip2 = 6;
-    	Random random = new Random();
     	int laylout_th = random.nextInt(3); 
     	Orientation orientation;
     	Coordinates coordinate ;
     	//System.out.print("placing ship!!");
         for(Ship ship :this.fleet.getShips()) {
         	int shipLength = ship.length();
-        	System.out.print(shipLength);
         	switch(shipLength){
         	case(2):{
         	    orientation = this.layoutOrientation[laylout_th][placedShip2];
@@ -147,74 +172,99 @@ public class TheBlackPearl extends ComputerOpponent {
     @Override
     public Coordinates promptToFireShot() throws Exception{
     	
-    	Random random = new Random();
-        Coordinates coordinates;
-        int nearby_x = 0;
-        int nearby_y = 0;
-		int delta_x[] = {-1,0,1,0};
-		int delta_y[] = {0,-1,0,1};
-		int jump_index[] = {2,3,0,1};
+    	//with only the last ships left, the endgame solver knows best, unless we already know its answer
+    	int endgameCell = Settings.USE_TRANSPOSITION_TABLES ? recallShot(ENDGAME_DECISIONS) : -1;
+    	if(endgameCell >= 0)
+    		return Coordinates.ofCellIndex(endgameCell);
+    	endgameCell = endgame.chooseCell(observations);
+    	if(endgameCell >= 0) {
+    		if(Settings.USE_TRANSPOSITION_TABLES)
+    			rememberShot(ENDGAME_DECISIONS, endgameCell, endgame.expectationOfLastChoice(), endgame.evaluationsOfLastChoice());
+    		return Coordinates.ofCellIndex(endgameCell);
+    	}
+    	return fireAtUnsunkHitsOrSearch();
+    }
+
+    /**
+     * The cells already picked for a salvo are left out, both by the endgame solver and when
+     * following up hits, so that every shot of the salvo goes to the next best cell.
+     */
+    @Override
+    protected Coordinates chooseAnotherShotOfSalvo() throws Exception {
+    	copyCurrentSalvo(salvoCells);
+    	int endgameCell = endgame.chooseAnotherCellOfSalvo(observations, salvoCells);
+    	if(endgameCell >= 0)
+    		return Coordinates.ofCellIndex(endgameCell);
+    	return fireAtUnsunkHitsOrSearch();
+    }
+
+    private Coordinates fireAtUnsunkHitsOrSearch() throws Exception {
+    	//without a ship that has been hitted but not be shunked, search right away
+        if(observations.countUnresolvedHits() == 0)
+        	return fireAtDensestCell();
 
-        List<Coordinates> rejectedCoordinates = new ArrayList<Coordinates>();
-             
-        for (int attempts = Settings.PLAYING_FIELD_HORIZONTAL_SIZE * Settings.PLAYING_FIELD_VERTICAL_SIZE * 10; attempts > 0; attempts--) {
-        	//first test the ship has been hitted but not be shunked
-            for(int x=0; x<Settings.PLAYING_FIELD_HORIZONTAL_SIZE; x++) {
-            	for(int y=0; y<Settings.PLAYING_FIELD_VERTICAL_SIZE; y++) {
-            		if(resultObservations[x][y] == ResultObservation.HIT) {
-            			for(int i=0; i<4; i++) {
-            				nearby_x = x + delta_x[i];
-            				nearby_y = y + delta_y[i];
-            				if(Coordinates.coordinateIsWithinPlayingField(nearby_x, nearby_y)) {
-            					if(resultObservations[nearby_x][nearby_y] == null) {
-            						return new Coordinates(nearby_x, nearby_y);
-            					}
-            					else if(resultObservations[nearby_x][nearby_y] == ResultObservation.MISS)
-            						continue;
-            					else if(resultObservations[nearby_x][nearby_y] == ResultObservation.HIT) {
-            						int anotherNearby_x = x + delta_x[jump_index[i]];
-            						int anotherNearby_y = y + delta_y[jump_index[i]];
-            						if(Coordinates.coordinateIsWithinPlayingField(anotherNearby_x, anotherNearby_y) && 
-            								resultObservations[anotherNearby_x][anotherNearby_y] == null)
-            							return new Coordinates(anotherNearby_x, anotherNearby_y);
-            						else
-            							break;
-            					}
-            				}
-            			}	
-            		}
-            	}
-            }
-            //search randomly in not rejected region and white place
-            coordinates = new Coordinates(
-                    random.nextInt(Settings.PLAYING_FIELD_HORIZONTAL_SIZE),
-                    random.nextInt(Settings.PLAYING_FIELD_VERTICAL_SIZE));
-            
-            // divide the layout into black-white board
-            boolean[][] blackWhiteFleetJudge = new boolean [Settings.PLAYING_FIELD_VERTICAL_SIZE][Settings.PLAYING_FIELD_HORIZONTAL_SIZE];
-            for(int rowOfBWF = 0; rowOfBWF < Settings.PLAYING_FIELD_VERTICAL_SIZE; rowOfBWF++ )
-            	for(int colOfBWF = 0; colOfBWF < Settings.PLAYING_FIELD_HORIZONTAL_SIZE; colOfBWF++) {
-            		if( (rowOfBWF + colOfBWF) %2 != 0 )
-            			blackWhiteFleetJudge[rowOfBWF][colOfBWF] = false;
-            		else
-            			blackWhiteFleetJudge[rowOfBWF][colOfBWF] = true;
-            	}
-            
-            
-            boolean coordinatesHaveNotYetBeenFiredUpon = resultObservations[coordinates.x][coordinates.y] == null 
-            		&& blackWhiteFleetJudge[coordinates.x][coordinates.y] == true;
-            
-            boolean fireAtTheseCoordinates = coordinatesHaveNotYetBeenFiredUpon;
-            if (!coordinatesHaveNotYetBeenFiredUpon) {
-                rejectedCoordinates.add(coordinates);
-                attempts--;
-            }
-            if (fireAtTheseCoordinates)
-                return coordinates;
+    	//first test the ship has been hitted but not be shunked
+        for(int x=0; x<Settings.PLAYING_FIELD_HORIZONTAL_SIZE; x++) {
+        	for(int y=0; y<Settings.PLAYING_FIELD_VERTICAL_SIZE; y++) {
+        		int cell = BitBoard.cellIndex(x, y);
+        		if(getResultObservationAtCell(cell) == ResultObservation.HIT) {
+        			for(int direction=0; direction<NeighbourTable.DIRECTIONS; direction++) {
+        				int nearby = NeighbourTable.inDirection(cell, direction);
+        				if(nearby >= 0) {
+        					ResultObservation nearbyObservation = getResultObservationAtCell(nearby);
+        					if(nearbyObservation == null) {
+        						if(isPartOfCurrentSalvo(nearby))
+        							continue;
+        						return Coordinates.ofCellIndex(nearby);
+        					}
+        					else if(nearbyObservation == ResultObservation.MISS)
+        						continue;
+        					else if(nearbyObservation == ResultObservation.HIT) {
+        						int anotherNearby = NeighbourTable.inDirection(cell, NeighbourTable.opposite(direction));
+        						if(anotherNearby >= 0 && getResultObservationAtCell(anotherNearby) == null
+        								&& !isPartOfCurrentSalvo(anotherNearby))
+        							return Coordinates.ofCellIndex(anotherNearby);
+        						else
+        							break;
+        					}
+        				}
+        			}	
+        		}
+        	}
         }
-        throw new Exception("Attempts depleted, no firing solution found.");
-    	
-        //return fireAtRandomTarget();
+        //search the places not yet fired at
+        return fireAtDensestCell();
+    }
+
+    /**
+     * Fires at the cell not yet fired at (nor picked for the current salvo) that the most
+     * placements of the ships afloat cover, given every miss and sunk ship; see DensityKernel.
+     */
+    private Coordinates fireAtDensestCell() throws Exception {
+    	observations.copyMisses(openCells);
+    	observations.copySunk(sunkCells);
+    	BitBoard.or(openCells, sunkCells);
+    	BitBoard.complement(openCells, openCells);
+    	densityKernel.countDensity(openCells, shipsAfloatByLength, density);
+    	int best = -1;
+    	long bestDensity = 0;
+    	int ties = 0;
+    	for(int cell=0; cell<BitBoard.CELLS; cell++) {
+    		if(density[cell] < bestDensity || density[cell] == 0 || getResultObservationAtCell(cell) != null
+    				|| isPartOfCurrentSalvo(cell))
+    			continue;
+    		if(density[cell] > bestDensity) {
+    			best = cell;
+    			bestDensity = density[cell];
+    			ties = 1;
+    		}
+    		else if(random.nextInt(++ties) == 0)
+    			best = cell;
+    	}
+    	//no ship fits anywhere any more, which only happens if the observations are inconsistent
+    	if(best < 0)
+    		return fireAtRandomTargetWithParity(0);
+    	return Coordinates.ofCellIndex(best);
     }
 
 
@@ -252,7 +302,6 @@ public class TheBlackPearl extends ComputerOpponent {
         	this.lastHitted = coordinates;
         }        
         this.rejectedCoordinates.add(coordinates);
-        System.out.print("###MISS###");
     }
 
     @Override
@@ -261,36 +310,27 @@ public class TheBlackPearl extends ComputerOpponent {
         this.lastFireHitted = true;
         this.lastHitted = coordinates;
         this.rejectedCoordinates.add(coordinates);
-        System.out.print("+++HIT+++");
     }
 
     @Override
     public void youHaveSunkAnEnemyShip(Coordinates lastHit, Ship ship) {
         super.youHaveSunkAnEnemyShip(lastHit, ship);
-        Coordinates coordinates;
-        int nearby_x = 0;
-        int nearby_y = 0;
-		int delta_x[] = {-1,0,1,0};
-		int delta_y[] = {0,-1,0,1};
+        endgame.enemyShipHasBeenSunk(ship.length());
+        if(ship.length() <= shipsAfloatByLength.length && shipsAfloatByLength[ship.length() - 1] > 0)
+        	shipsAfloatByLength[ship.length() - 1]--;
         rejectedCoordinates.add(lastHit);
         for(ShipTile tile : ship.getTiles()) {
-        	int x = tile.getHorizontalIndex();
-        	int y = tile.getVerticalIndex();
-        	for(int attempts=0; attempts <4 ; attempts++) {
-        		nearby_x = x + delta_x[attempts];
-        		nearby_y = y + delta_y[attempts];
-        		if(Coordinates.coordinateIsWithinPlayingField(nearby_x, nearby_y)) {
-    				coordinates = new Coordinates(nearby_x, nearby_y);
-	                boolean hasNotBeenRejected = resultObservations[coordinates.x][coordinates.y] == null;    				
-	                //boolean hasNotBeenRejected = !rejectedCoordinates.contains(coordinates);
-    				if(hasNotBeenRejected)
-    					resultObservations[coordinates.x][coordinates.y] = ResultObservation.MISS;
-    					//rejectedCoordinates.add(coordinates);
-    			}		
+        	int cell = BitBoard.cellIndex(tile.getHorizontalIndex(), tile.getVerticalIndex());
+        	for(int n=0; n<NeighbourTable.count(cell); n++) {
+        		int nearby = NeighbourTable.get(cell, n);
+	            boolean hasNotBeenRejected = getResultObservationAtCell(nearby) == null;
+	            //boolean hasNotBeenRejected = !rejectedCoordinates.contains(coordinates);
+    			if(hasNotBeenRejected)
+    				recordObservationAtCell(nearby, ResultObservation.MISS);
+    				//rejectedCoordinates.add(coordinates);
         	}
         }
         this.lastFireHitted = false;
-        System.out.print("---SUNK---");
     }
         		
 
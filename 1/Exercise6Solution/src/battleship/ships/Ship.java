@@ -1,7 +1,7 @@
 package battleship.ships;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 import battleship.handling.Settings;
 import battleship.tiles.ShipTile;
@@ -9,16 +9,32 @@ import battleship.tiles.ShipTile;
 public class Ship {
 
     private boolean hasBeenPlaced = false;
-    private Set<ShipTile> tiles;
     private int length;
 
+    /**
+     * The ship's tiles, in the order they were placed in. They are kept when the ship is reset,
+     * and put back onto the playing field when it is placed anew, so that only the first
+     * placedTiles of them are on the field.
+     */
+    private List<ShipTile> tiles;
+    private int placedTiles = 0;
+
+    /**
+     * The number of this ship's tiles that have been fired upon. The tiles keep it up to date,
+     * so that the ship's strength can be told without looking at every tile.
+     */
+    private int hits = 0;
+
     public Ship(int length) {
         this.length = length;
-        this.tiles = new HashSet<ShipTile>();
+        this.tiles = new ArrayList<ShipTile>(length);
     }
 
-    public Set<ShipTile> getTiles() {
-        return tiles;
+    /**
+     * @return the tiles on the playing field, in the order they were placed in.
+     */
+    public List<ShipTile> getTiles() {
+        return placedTiles == tiles.size() ? tiles : tiles.subList(0, placedTiles);
     }
 
     public boolean isSunk() {
@@ -26,15 +42,28 @@ public class Ship {
     }
 
     public int strength() {
-        int sum = 0;
-        for (ShipTile tile : tiles)
-            if (!tile.hasBeenFiredUpon())
-                sum++;
-        return sum;
+        return placedTiles - hits;
+    }
+
+    /**
+     * Called by one of this ship's tiles when it is fired upon for the first time.
+     */
+    public void registerHit() {
+        this.hits++;
+    }
+
+    /**
+     * Takes the ship off the playing field again, undamaged, so that it can be placed anew.
+     * Its tiles are kept for that (see nextKeptTile()).
+     */
+    public void reset() {
+        this.hasBeenPlaced = false;
+        this.placedTiles = 0;
+        this.hits = 0;
     }
 
     public String getVisualRepresentation() {
-        return tiles.size() + "";
+        return placedTiles + "";
     }
 
     public void markShipAsPlaced() {
@@ -49,8 +78,23 @@ public class Ship {
         return length;
     }
 
+    /**
+     * Called by a tile when it is placed onto the playing field as this ship's next tile.
+     */
     public void associateWithTile(ShipTile tile) {
-        this.tiles.add(tile);
+        if (placedTiles == tiles.size())
+            this.tiles.add(tile);
+        else
+            this.tiles.set(placedTiles, tile);
+        placedTiles++;
+    }
+
+    /**
+     * @return the tile to be placed next that this ship has kept from an earlier placement (see
+     * reset()), or null if there is none, in which case a new one has to be created.
+     */
+    public ShipTile nextKeptTile() {
+        return placedTiles < tiles.size() ? tiles.get(placedTiles) : null;
     }
 
     @Override
@@ -0,0 +1,249 @@
+package battleship.tiles;
+
+import java.util.Arrays;
+
+import battleship.handling.Settings;
+import battleship.players.Player;
+import battleship.ships.Ship;
+import battleship.ships.ShipAlreadyPlacedException;
+import battleship.utilities.BitBoard;
+import battleship.utilities.Coordinates;
+import battleship.utilities.StringManipulation;
+
+/**
+ * This fleet behaves exactly like its base class, but does not keep a grid of tile objects.
+ * Instead, which cells have been fired upon and which belong to each ship are stored as bit
+ * sets (see BitBoard), just like the fleet's occupied cells, so that resolving a shot and
+ * similar questions only take a few operations on longs.
+ *
+ * Ship tiles are still kept for the ships, because players receive the ship (and through it,
+ * its tiles) when they sink it. Like the tile grid, they are created in the first game and
+ * reused in later ones.
+ */
+public class BitboardFleet extends Fleet {
+
+    /**
+     * The ships in a fixed order; a ship's position in this array is its index in the fields below.
+     */
+    private final Ship[]        shipList;
+
+    private final long[]        firedUpon;
+
+    /**
+     * The cells of all ships, one after another; ship number s uses the longs from
+     * s * BitBoard.WORDS up to (but not including) (s + 1) * BitBoard.WORDS.
+     */
+    private final long[]        shipCells;
+
+    /**
+     * For each cell, the index of the ship occupying it, or -1 for open water.
+     */
+    private final byte[]        shipIndexAtCell;
+    private final ShipTile[]    shipTileAtCell;
+
+    public BitboardFleet(Player player) {
+        super(player, false);
+        this.shipList = getShips().toArray(new Ship[0]);
+        this.firedUpon = BitBoard.create();
+        this.shipCells = new long[shipList.length * BitBoard.WORDS];
+        this.shipIndexAtCell = new byte[BitBoard.CELLS];
+        this.shipTileAtCell = new ShipTile[BitBoard.CELLS];
+        Arrays.fill(shipIndexAtCell, (byte) -1);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        BitBoard.clearAll(firedUpon);
+        Arrays.fill(shipCells, 0L);
+        // shipTileAtCell is only read where shipIndexAtCell names a ship, so it can stay as it is.
+        Arrays.fill(shipIndexAtCell, (byte) -1);
+    }
+
+    @Override
+    public Ship getShipAtCoordinates(Coordinates coordinates) {
+        int shipIndex = shipIndexAtCell[checkedCellIndex(coordinates.x, coordinates.y)];
+        return shipIndex < 0 ? null : shipList[shipIndex];
+    }
+
+    @Override
+    public boolean coordinatesHaveBeenShotAt(Coordinates coordinates) {
+        return cellHasBeenShotAt(checkedCellIndex(coordinates.x, coordinates.y));
+    }
+
+    @Override
+    public boolean cellHasBeenShotAt(int cellIndex) {
+        return BitBoard.get(firedUpon, cellIndex);
+    }
+
+    @Override
+    public void placeShip(Ship ship, Coordinates coordinates,
+            int length, Orientation orientation)
+            throws TileAlreadyOccupiedException, ShipAlreadyPlacedException {
+
+        if (ship.hasBeenPlaced())
+            throw new ShipAlreadyPlacedException("Ship " + ship + " has already been placed!");
+
+        int shipIndex = indexOf(ship);
+        int dx = orientation == Orientation.HORIZONTAL ? 1 : 0;
+        int dy = 1 - dx;
+
+        // Check the whole location first, so that a failed placement leaves no traces.
+        for (int i = 0; i < length; i++) {
+            int x = coordinates.x + i * dx;
+            int y = coordinates.y + i * dy;
+            if (isOccupied(checkedCellIndex(x, y)))
+                throw new TileAlreadyOccupiedException("(" + x + "/" + y + ")");
+        }
+
+        for (int i = 0; i < length; i++) {
+            int x = coordinates.x + i * dx;
+            int y = coordinates.y + i * dy;
+            int cellIndex = BitBoard.cellIndex(x, y);
+            markAsOccupied(cellIndex);
+            shipCells[shipIndex * BitBoard.WORDS + (cellIndex >>> 6)] |= 1L << cellIndex;
+            shipIndexAtCell[cellIndex] = (byte) shipIndex;
+            shipTileAtCell[cellIndex] = placeShipTile(ship, Coordinates.ofCellIndex(cellIndex));
+        }
+        ship.markShipAsPlaced();
+    }
+
+    /**
+     * Open water needs no tile objects in this fleet, so there is nothing to do.
+     */
+    @Override
+    public void fillAllUnoccupiedTiles() {
+    }
+
+    @Override
+    public String generateOneLineOfTheVisualRepresentation(int lineNumber, boolean showShips) {
+        String line = "";
+        // Start each line with its number
+        line += lineNumber + "" + StringManipulation.TAB;
+        // Then add each horizontal step's tile
+        for (int horizontal = 0; horizontal < Settings.PLAYING_FIELD_HORIZONTAL_SIZE; horizontal++) {
+            int cellIndex = checkedCellIndex(horizontal, lineNumber);
+            boolean hasBeenFiredUpon = BitBoard.get(firedUpon, cellIndex);
+            String representation;
+            if (!isOccupied(cellIndex))
+                representation = hasBeenFiredUpon ? "." : " ";
+            else if (hasBeenFiredUpon)
+                representation = "X";
+            else if (showShips)
+                representation = shipList[shipIndexAtCell[cellIndex]].getVisualRepresentation();
+            else
+                representation = " ";
+            line += representation + StringManipulation.TAB;
+        }
+        return line;
+    }
+
+    /**
+     * Resolves a shot with the same callbacks, in the same order, as Tile.fireAtThisTile
+     * and ShipTile.fireAtThisTile do.
+     */
+    @Override
+    public void receiveFireAtCoordinates(Player observer, Coordinates coordinates) {
+        receiveFireAtCell(observer, checkedCellIndex(coordinates.x, coordinates.y));
+    }
+
+    /**
+     * The callbacks receive the shared Coordinates instance for the cell, so no coordinates
+     * are created while resolving a shot.
+     */
+    @Override
+    public void receiveFireAtCell(Player observer, int cellIndex) {
+        Coordinates coordinates = Coordinates.ofCellIndex(cellIndex);
+        boolean hasBeenFiredUpon = BitBoard.get(firedUpon, cellIndex);
+        int shipIndex = shipIndexAtCell[cellIndex];
+
+        if (shipIndex < 0) {
+            if (hasBeenFiredUpon) {
+                observer.youKeepFiringAtNothing(coordinates);
+                getPlayer().theEnemyKeepsFiringAtNothing(observer, coordinates);
+            } else {
+                observer.youHaveMissed(coordinates);
+                getPlayer().youHaveBeenMissed(observer, coordinates);
+                BitBoard.set(firedUpon, cellIndex);
+            }
+            return;
+        }
+
+        Ship ship = shipList[shipIndex];
+        if (shipIsSunk(shipIndex)) {
+            observer.youKeepFiringAtASunkShip(coordinates, ship);
+            getPlayer().theEnemyKeepsFiringAtASunkShip(observer, coordinates, ship);
+        } else if (hasBeenFiredUpon) {
+            observer.youKeepFiringAtTheSameHole(coordinates);
+            getPlayer().theEnemyKeepsFiringAtTheSameHole(observer, coordinates, ship);
+        } else {
+            BitBoard.set(firedUpon, cellIndex);
+            shipTileAtCell[cellIndex].markAsHavingBeenFiredUpon();
+            if (shipIsSunk(shipIndex)) {
+                observer.youHaveSunkAnEnemyShip(coordinates, ship);
+                getPlayer().yourShipHasBeenSunk(observer, coordinates, ship);
+            } else {
+                observer.youHaveHitYourTarget(coordinates);
+                getPlayer().youHaveBeenHit(observer, coordinates, ship);
+            }
+        }
+    }
+
+    /**
+     * Resolves a shot of a salvo with a few bit operations, like receiveFireAtCell.
+     */
+    @Override
+    protected void resolveShotOfSalvo(Coordinates coordinates, SalvoResult salvo) {
+        int cellIndex = checkedCellIndex(coordinates.x, coordinates.y);
+        Coordinates shared = Coordinates.ofCellIndex(cellIndex);
+        int shipIndex = shipIndexAtCell[cellIndex];
+        Ship ship = shipIndex < 0 ? null : shipList[shipIndex];
+        boolean shipIsSunk = shipIndex >= 0 && shipIsSunk(shipIndex);
+        if (BitBoard.get(firedUpon, cellIndex) || shipIsSunk) {
+            salvo.add(shared, ShotResult.REPEATED, ship, shipIsSunk);
+            return;
+        }
+        BitBoard.set(firedUpon, cellIndex);
+        if (ship == null) {
+            salvo.add(shared, ShotResult.MISS, null, false);
+            return;
+        }
+        shipTileAtCell[cellIndex].markAsHavingBeenFiredUpon();
+        salvo.add(shared, shipIsSunk(shipIndex) ? ShotResult.SUNK : ShotResult.HIT, ship, false);
+    }
+
+    /**
+     * This fleet already keeps its cells as bit sets, so they can simply be copied.
+     */
+    @Override
+    public FleetState snapshot() throws InvalidFleetSetupException {
+        if (!allShipsHaveBeenPlaced())
+            throw new InvalidFleetSetupException(this + " cannot be copied before all its ships have been placed.");
+        return new FleetState(shipCells.clone(), firedUpon);
+    }
+
+    private boolean shipIsSunk(int shipIndex) {
+        int offset = shipIndex * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            if ((shipCells[offset + word] & ~firedUpon[word]) != 0)
+                return false;
+        return true;
+    }
+
+    private int indexOf(Ship ship) {
+        for (int shipIndex = 0; shipIndex < shipList.length; shipIndex++)
+            if (shipList[shipIndex] == ship)
+                return shipIndex;
+        throw new IllegalArgumentException("Ship " + ship + " does not belong to " + this + ".");
+    }
+
+    /**
+     * Converts coordinates into a cell index, failing the same way as the tile grid
+     * does for coordinates outside the playing field.
+     */
+    private static int checkedCellIndex(int x, int y) throws ArrayIndexOutOfBoundsException {
+        if (!Coordinates.coordinateIsWithinPlayingField(x, y))
+            throw new ArrayIndexOutOfBoundsException("Invalid coordinate (" + x + ", " + y + ").");
+        return BitBoard.cellIndex(x, y);
+    }
+}
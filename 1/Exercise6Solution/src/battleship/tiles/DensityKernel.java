@@ -0,0 +1,156 @@
+package battleship.tiles;
+
+import java.util.Arrays;
+
+import battleship.handling.Settings;
+import battleship.utilities.BitBoard;
+
+/**
+ * A density kernel counts, for every cell, the placements of a ship (see PlacementTable) that
+ * cover it and lie entirely on open cells, i.e. cells where a ship may still be, such as unknown
+ * cells and unresolved hits. Weighted with the number of ships of each length and summed up,
+ * that is the density map of a targeting AI; countDensity() recounts it from scratch, which is
+ * what TheBlackPearl does for every shot while hunting.
+ *
+ * Vertical placements are windows running across the rows: a window starting in row y is open
+ * if its column is open in rows y to y + length - 1, which is an AND of whole rows, and a cell
+ * is covered by the open windows starting in the length rows up to its own, which is a sum of
+ * whole rows. Horizontal placements are the same across the columns, so the kernel keeps the
+ * open cells both row by row and column by column, as arrays of ints. Since the lines are stored
+ * one after another, this is the same operation on long runs of consecutive ints, one run per
+ * line shift, which is what the Java Vector API runs on many ints at once.
+ *
+ * The kernel built on the Vector API lives in a source folder of its own, src-vector, since
+ * it only compiles with the jdk.incubator.vector module; everything in src compiles without
+ * it. To use it, compile src as usual, then src-vector on top of it, and run with the module:
+ *
+ *   javac -d bin $(find src -name "*.java")
+ *   javac --add-modules jdk.incubator.vector -cp bin -d bin $(find src-vector -name "*.java")
+ *   java --add-modules jdk.incubator.vector -cp bin ...
+ *
+ * create() returns that kernel if Settings.USE_VECTOR_API asks for it and it can be loaded,
+ * and one working an int at a time otherwise. Both give exactly the same counts. Whether it can
+ * be loaded is only found out once; after that, the scalar kernel is returned right away.
+ *
+ * A kernel keeps its working arrays, so it allocates nothing after construction, but it is not
+ * safe to share between threads.
+ */
+public abstract class DensityKernel {
+
+    private static final String VECTOR_KERNEL = "battleship.tiles.VectorDensityKernel";
+
+    private static volatile boolean vectorKernelIsMissing = false;
+
+    protected final int     width   = Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+    protected final int     height  = Settings.PLAYING_FIELD_VERTICAL_SIZE;
+
+    /**
+     * The open cells as 1 or 0, row by row (cell (x, y) at y * width + x) and column by column
+     * (at x * height + y).
+     */
+    protected final int[]   openByRow;
+    protected final int[]   openByColumn;
+
+    /**
+     * Which windows are open, and how many open windows cover each cell, in the same two layouts.
+     */
+    protected final int[]   windows;
+    protected final int[]   coverageByRow;
+    protected final int[]   coverageByColumn;
+
+    protected DensityKernel() {
+        this.openByRow = new int[BitBoard.CELLS];
+        this.openByColumn = new int[BitBoard.CELLS];
+        this.windows = new int[BitBoard.CELLS];
+        this.coverageByRow = new int[BitBoard.CELLS];
+        this.coverageByColumn = new int[BitBoard.CELLS];
+    }
+
+    /**
+     * @return the kernel built on the Vector API if it is asked for and available, or the
+     * scalar one.
+     */
+    public static DensityKernel create() {
+        if (Settings.USE_VECTOR_API && !vectorKernelIsMissing) {
+            try {
+                return (DensityKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor()
+                        .newInstance();
+            } catch (Exception e) {
+                // Not compiled in; fall through.
+                vectorKernelIsMissing = true;
+            } catch (LinkageError e) {
+                // The runtime lacks the jdk.incubator.vector module.
+                vectorKernelIsMissing = true;
+            }
+        }
+        return new ScalarDensityKernel();
+    }
+
+    /**
+     * Sets coverage, from the given offset on, to the number of placements of a ship of the
+     * given length that lie entirely on the given open cells, for every cell.
+     */
+    public void countPlacements(long[] open, int length, int[] coverage, int offset) {
+        unpack(open);
+        countUnpackedPlacements(length);
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            coverage[offset + cellIndex] = coverageOf(cellIndex);
+    }
+
+    /**
+     * Sets density to the density map of the given open cells: for every cell, the number of
+     * placements covering it, counted for every ship length and weighted with how many ships of
+     * that length there are.
+     * @param shipsByLength how many ships of length 1, 2, ... there are, at index 0, 1, ...
+     */
+    public void countDensity(long[] open, int[] shipsByLength, long[] density) {
+        unpack(open);
+        Arrays.fill(density, 0L);
+        for (int length = 1; length <= shipsByLength.length; length++) {
+            int ships = shipsByLength[length - 1];
+            if (ships == 0)
+                continue;
+            countUnpackedPlacements(length);
+            for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+                density[cellIndex] += (long) ships * coverageOf(cellIndex);
+        }
+    }
+
+    private void countUnpackedPlacements(int length) {
+        Arrays.fill(coverageByRow, 0);
+        Arrays.fill(coverageByColumn, 0);
+        // Vertical placements run across the rows, horizontal ones across the columns.
+        if (length <= height)
+            addWindowsAcrossLines(openByRow, height, width, length, coverageByRow);
+        if (length <= width)
+            addWindowsAcrossLines(openByColumn, width, height, length, coverageByColumn);
+    }
+
+    private int coverageOf(int cellIndex) {
+        int x = BitBoard.xOf(cellIndex);
+        int y = BitBoard.yOf(cellIndex);
+        return coverageByRow[y * width + x] + coverageByColumn[x * height + y];
+    }
+
+    private void unpack(long[] open) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int isOpen = BitBoard.get(open, BitBoard.cellIndex(x, y)) ? 1 : 0;
+                openByRow[y * width + x] = isOpen;
+                openByColumn[x * height + y] = isOpen;
+            }
+        }
+    }
+
+    /**
+     * For a grid of the given number of lines, each lineLength ints long, finds the windows of
+     * the given length running across the lines (starting at the same position in length
+     * consecutive lines) that are open in every line, and adds one to the coverage of each of
+     * their cells. The window starting at grid index j is stored at windows[j].
+     *
+     * All windows are handled at once: the first (lines - length + 1) * lineLength ints of the
+     * grid are the windows' first cells, and their k-th cells lie k * lineLength ints further on.
+     */
+    protected abstract void addWindowsAcrossLines(int[] open, int lines, int lineLength, int length,
+            int[] coverage);
+}
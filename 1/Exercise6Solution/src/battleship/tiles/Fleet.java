@@ -1,13 +1,16 @@
 package battleship.tiles;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import battleship.handling.Settings;
 import battleship.players.Player;
 import battleship.ships.Ship;
 import battleship.ships.ShipAlreadyPlacedException;
+import battleship.utilities.BitBoard;
 import battleship.utilities.Coordinates;
+import battleship.utilities.NeighbourTable;
 import battleship.utilities.StringManipulation;
 
 /**
@@ -37,14 +40,52 @@ public class Fleet {
      */
     private Tile[][] tiles;
 
+    /**
+     * The tiles of open water, kept from game to game (see reset()), or null where none has
+     * been needed yet.
+     */
+    private Tile[][] waterTiles;
+
+    /**
+     * These counters are kept up to date by the ship tiles as they are created and fired upon,
+     * so that the fleet's strength and whether it is defeated can be told without walking
+     * through every ship and tile.
+     */
+    private int strength    = 0;
+    private int shipsAfloat = 0;
+
+    /**
+     * The cells occupied by ships, as a bit set (see BitBoard).
+     */
+    private final long[] occupied = BitBoard.create();
+
+    /**
+     * The cells no further ship may cover: the occupied cells and, unless adjacent ships
+     * are allowed, their neighbours. It grows with every ship tile, so that whether a
+     * placement from the PlacementTable is legal is a single test of its cells against it.
+     */
+    private final long[] blocked = BitBoard.create();
+
     public enum Orientation {
         VERTICAL, HORIZONTAL
     }
 
     public Fleet(Player player) {
+        this(player, true);
+    }
+
+    /**
+     * Subclasses that store their tiles in some other way can skip the creation of the tile grid.
+     * They must then override every public function that accesses the tiles.
+     */
+    protected Fleet(Player player, boolean createTileGrid) {
         this.player = player;
-        this.tiles = new Tile[Settings.PLAYING_FIELD_HORIZONTAL_SIZE][Settings.PLAYING_FIELD_VERTICAL_SIZE];
-        this.ships = new HashSet<Ship>();
+        if (createTileGrid) {
+            this.tiles = new Tile[Settings.PLAYING_FIELD_HORIZONTAL_SIZE][Settings.PLAYING_FIELD_VERTICAL_SIZE];
+            this.waterTiles = new Tile[Settings.PLAYING_FIELD_HORIZONTAL_SIZE][Settings.PLAYING_FIELD_VERTICAL_SIZE];
+        }
+        // Keeps the ships in the order they were created in, so that going through them is reproducible.
+        this.ships = new LinkedHashSet<Ship>();
         for (int i = 0; i < Settings.FIVE_TILE_SHIPS; i++)
             ships.add(new Ship(5));
         for (int i = 0; i < Settings.FOUR_TILE_SHIPS; i++)
@@ -57,6 +98,23 @@ public class Fleet {
             ships.add(new Ship(1));
     }
 
+    /**
+     * Takes all ships off the playing field again, so that the fleet can be set up for another game.
+     * The tile objects are kept, by the ships and in waterTiles, and reused when the fleet is set
+     * up again, so that a new game creates none.
+     */
+    public void reset() {
+        for (Ship ship : ships)
+            ship.reset();
+        if (tiles != null)
+            for (Tile[] column : tiles)
+                Arrays.fill(column, null);
+        strength = 0;
+        shipsAfloat = 0;
+        BitBoard.clearAll(occupied);
+        BitBoard.clearAll(blocked);
+    }
+
     /**
      * @return returns the actual list, not a copy.
      */
@@ -80,49 +138,109 @@ public class Fleet {
     }
 
     public int currentFleetStrength() {
-        int sum = 0;
-        for (Ship ship : ships)
-            sum += ship.strength();
-        return sum;
+        return strength;
+    }
+
+    /**
+     * @return the number of ships that have not been sunk.
+     */
+    public int shipsAfloat() {
+        return shipsAfloat;
+    }
+
+    void registerShipTile(Ship ship) {
+        strength++;
+        // A ship's first intact tile puts it afloat.
+        if (ship.strength() == 1)
+            shipsAfloat++;
+    }
+
+    void registerHit(Ship ship) {
+        strength--;
+        if (ship.isSunk())
+            shipsAfloat--;
     }
 
     /**
      * Ships are placed by specifying coordinates; these
      * will be the ship's upper and left end. Orientation and length specify in which
      * direction the rest of the ship goes.
+     * A location that does not fit onto the playing field is never free.
      */
     public boolean potentialShipLocationIsFree(Coordinates coordinates, 
             int length, Orientation orientation) {
 
-        int x = coordinates.x;
-        int y = coordinates.y;
-        for (int i = 0; i < length; i++) {
-            if (!tileIsFree(x,y)) 
-                return false;
-            // If applicable, check for ships being too close together.
-            if (!Settings.ALLOW_ADJACENT_SHIP_PLACEMENT && 
-                    ((Coordinates.coordinateIsWithinPlayingField(x-1, y) && !tileIsFree(x-1,y)) ||
-                            (Coordinates.coordinateIsWithinPlayingField(x+1, y) && !tileIsFree(x+1,y)) ||
-                            (Coordinates.coordinateIsWithinPlayingField(x, y-1) && !tileIsFree(x,y-1)) ||
-                            (Coordinates.coordinateIsWithinPlayingField(x, y+1) && !tileIsFree(x,y+1))))
-                return false;
+        PlacementTable table = PlacementTable.forShipLength(length);
+        int placement = table.placementAt(coordinates.x, coordinates.y, orientation);
+        return placement >= 0 && table.avoids(placement, blocked);
+    }
 
-            if (orientation == Orientation.HORIZONTAL)
-                x++;
-            else 
-                y++;
+    /**
+     * @param placement a placement number from the given table.
+     */
+    public boolean placementIsFree(PlacementTable table, int placement) {
+        return table.avoids(placement, blocked);
+    }
+
+    /**
+     * Places a ship at a placement from the PlacementTable for its length.
+     */
+    public void placeShip(Ship ship, int placement)
+            throws TileAlreadyOccupiedException, ShipAlreadyPlacedException {
+
+        PlacementTable table = PlacementTable.forShipLength(ship.length());
+        int origin = table.origin(placement);
+        placeShip(ship, Coordinates.ofCellIndex(origin),
+                ship.length(), table.orientation(placement));
+    }
+
+    /**
+     * @return a FleetState with the same ships and the same cells fired upon as this fleet,
+     * so that shots can be tried out without touching the fleet itself. The ships are numbered
+     * in the order getShips() lists them.
+     * @throws InvalidFleetSetupException if not all ships have been placed yet.
+     */
+    public FleetState snapshot() throws InvalidFleetSetupException {
+        if (!allShipsHaveBeenPlaced())
+            throw new InvalidFleetSetupException(this + " cannot be copied before all its ships have been placed.");
+        long[] shipCells = new long[ships.size() * BitBoard.WORDS];
+        int shipIndex = 0;
+        for (Ship ship : ships) {
+            for (ShipTile tile : ship.getTiles()) {
+                int cellIndex = BitBoard.cellIndex(tile.getHorizontalIndex(), tile.getVerticalIndex());
+                shipCells[shipIndex * BitBoard.WORDS + (cellIndex >>> 6)] |= 1L << cellIndex;
+            }
+            shipIndex++;
         }
-        return true;
+        long[] firedUpon = BitBoard.create();
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            if (cellHasBeenShotAt(cellIndex))
+                BitBoard.set(firedUpon, cellIndex);
+        return new FleetState(shipCells, firedUpon);
     }
 
-    private boolean tileIsFree (int x, int y) {
-        return getTile(x, y) == null;
+    void markAsOccupied(int cellIndex) {
+        BitBoard.set(occupied, cellIndex);
+        BitBoard.set(blocked, cellIndex);
+        if (!Settings.ALLOW_ADJACENT_SHIP_PLACEMENT)
+            NeighbourTable.addNeighboursTo(cellIndex, blocked);
+    }
+
+    boolean isOccupied(int cellIndex) {
+        return BitBoard.get(occupied, cellIndex);
     }
 
     public boolean coordinatesHaveBeenShotAt(Coordinates coordinates) {
         return getTile(coordinates).hasBeenFiredUpon();
     }
 
+    /**
+     * Same as above, for the cell with the given index (see BitBoard).
+     */
+    public boolean cellHasBeenShotAt(int cellIndex) {
+        return coordinatesHaveBeenShotAt(Coordinates.ofCellIndex(cellIndex));
+    }
+
     public void placeShip(Ship ship, Coordinates coordinates, 
             int length, Orientation orientation) 
             throws TileAlreadyOccupiedException, ShipAlreadyPlacedException {
@@ -135,7 +253,7 @@ public class Fleet {
         for (int i = 0; i < length; i++) {
             if (getTile(x, y) != null)
                 throw new TileAlreadyOccupiedException("(" + x + "/" + y + ")");
-            occupyTile(new Coordinates(x,y), ship);
+            occupyTile(Coordinates.of(x,y), ship);
             if (orientation == Orientation.HORIZONTAL)
                 x++;
             else
@@ -151,8 +269,20 @@ public class Fleet {
             throw new TileAlreadyOccupiedException(
                     "Tile " + getTile(coordinates) + " is already occupied!");
 
-        ShipTile shipTile = new ShipTile(coordinates, ship, this);
-        setTile(coordinates, shipTile);
+        setTile(coordinates, placeShipTile(ship, coordinates));
+        markAsOccupied(BitBoard.cellIndex(coordinates.x, coordinates.y));
+    }
+
+    /**
+     * Puts the ship's next tile at the given coordinates, reusing one the ship has kept from an
+     * earlier game if it can.
+     */
+    ShipTile placeShipTile(Ship ship, Coordinates coordinates) {
+        ShipTile shipTile = ship.nextKeptTile();
+        if (shipTile == null)
+            return new ShipTile(coordinates, ship, this);
+        shipTile.placeAt(coordinates);
+        return shipTile;
     }
 
     private Tile getTile(Coordinates coordinates) {
@@ -177,10 +307,20 @@ public class Fleet {
     }
 
     public void fillAllUnoccupiedTiles() {
-        for (int horizontal = 0; horizontal < Settings.PLAYING_FIELD_HORIZONTAL_SIZE; horizontal++)
-            for (int vertical = 0; vertical < Settings.PLAYING_FIELD_VERTICAL_SIZE; vertical++)
-                if (getTile(horizontal, vertical) == null)
-                    setTile(horizontal, vertical, new Tile(horizontal, vertical, this));
+        for (int horizontal = 0; horizontal < Settings.PLAYING_FIELD_HORIZONTAL_SIZE; horizontal++) {
+            for (int vertical = 0; vertical < Settings.PLAYING_FIELD_VERTICAL_SIZE; vertical++) {
+                if (getTile(horizontal, vertical) != null)
+                    continue;
+                Tile water = waterTiles[horizontal][vertical];
+                if (water == null) {
+                    water = new Tile(horizontal, vertical, this);
+                    waterTiles[horizontal][vertical] = water;
+                } else {
+                    water.resetTo(water.getCoordinates());
+                }
+                setTile(horizontal, vertical, water);
+            }
+        }
     }
 
     public String generateOneLineOfTheVisualRepresentation(int lineNumber, boolean showShips) {
@@ -199,11 +339,47 @@ public class Fleet {
         getTile(coordinates.x, coordinates.y).fireAtThisTile(observer);
     }
 
+    /**
+     * Same as above, for the cell with the given index (see BitBoard).
+     */
+    public void receiveFireAtCell(Player observer, int cellIndex) {
+        receiveFireAtCoordinates(observer, Coordinates.ofCellIndex(cellIndex));
+    }
+
+    /**
+     * Resolves all shots of a salvo, one after the other, without any callbacks in between.
+     * Afterwards, the observer and the player are each told about the whole salvo at once.
+     */
+    public SalvoResult receiveSalvo(Player observer, Coordinates[] shots) {
+        SalvoResult salvo = new SalvoResult(shots.length);
+        for (Coordinates coordinates : shots)
+            resolveShotOfSalvo(coordinates, salvo);
+        observer.yourSalvoHasLanded(salvo);
+        getPlayer().yourFleetHasBeenHitByASalvo(observer, salvo);
+        return salvo;
+    }
+
+    /**
+     * Resolves one shot just like the tiles do, but adds the outcome to the salvo instead of
+     * calling back anyone.
+     */
+    protected void resolveShotOfSalvo(Coordinates coordinates, SalvoResult salvo) {
+        Tile tile = getTile(coordinates.x, coordinates.y);
+        Ship ship = tile.getShip();
+        boolean shipIsSunk = ship != null && ship.isSunk();
+        if (tile.hasBeenFiredUpon() || shipIsSunk) {
+            salvo.add(tile.getCoordinates(), ShotResult.REPEATED, ship, shipIsSunk);
+            return;
+        }
+        tile.markAsHavingBeenFiredUpon();
+        if (ship == null)
+            salvo.add(tile.getCoordinates(), ShotResult.MISS, null, false);
+        else
+            salvo.add(tile.getCoordinates(), ship.isSunk() ? ShotResult.SUNK : ShotResult.HIT, ship, false);
+    }
+
     public boolean isDefeated() {
-        for (Ship ship : ships)
-            if (!ship.isSunk())
-                return false;
-        return true;
+        return shipsAfloat == 0;
     }
 
     @Override
@@ -0,0 +1,191 @@
+package battleship.tiles;
+
+import java.util.Arrays;
+
+import battleship.utilities.BitBoard;
+
+/**
+ * A fleet state is a compact copy of everything that matters about a fleet during a game:
+ * which cells belong to which ship, and which cells have been fired upon. Unlike a Fleet, it
+ * knows nothing about players, so shots can be applied to it without any callbacks.
+ *
+ * Where the ships are never changes, so copies share those arrays. Only the cells fired
+ * upon and the ships' remaining strength are copied, which makes copy() cost a few
+ * board words. This is meant for AIs that want to try out shots on thousands of
+ * hypothetical fleets without touching the real one.
+ */
+public class FleetState {
+
+    private final int           shipCount;
+    private final int[]         shipLengths;
+
+    /**
+     * The cells of all ships, one after another; ship number s uses the longs from
+     * s * BitBoard.WORDS up to (but not including) (s + 1) * BitBoard.WORDS.
+     */
+    private final long[]        shipCells;
+
+    /**
+     * For each cell, the index of the ship occupying it, or -1 for open water.
+     */
+    private final byte[]        shipIndexAtCell;
+
+    private final long[]        firedUpon;
+    private final int[]         shipStrengths;
+    private int                 strength;
+    private int                 shipsAfloat;
+
+    /**
+     * Creates an untouched fleet state with a ship on each of the given placements.
+     * @param shipLengths the length of each ship.
+     * @param placements for each ship, its placement number in the PlacementTable for its length,
+     * as handed out by a SequentialFleetSampler.
+     * @throws IllegalArgumentException if two ships share a cell.
+     */
+    public FleetState(int[] shipLengths, int[] placements) {
+        this.shipCount = shipLengths.length;
+        this.shipLengths = shipLengths.clone();
+        this.shipCells = new long[shipCount * BitBoard.WORDS];
+        this.shipIndexAtCell = new byte[BitBoard.CELLS];
+        this.firedUpon = BitBoard.create();
+        this.shipStrengths = new int[shipCount];
+        Arrays.fill(shipIndexAtCell, (byte) -1);
+        for (int ship = 0; ship < shipCount; ship++)
+            PlacementTable.forShipLength(shipLengths[ship]).addCellsTo(placements[ship], shipCells, ship * BitBoard.WORDS);
+        registerShipCells();
+    }
+
+    /**
+     * Creates a fleet state from ship cells that have already been worked out, e.g. by Fleet.snapshot().
+     * @param shipCells the cells of each ship, laid out as described for the field of the same name.
+     * @throws IllegalArgumentException if two ships share a cell.
+     */
+    FleetState(long[] shipCells, long[] cellsFiredUpon) {
+        this.shipCount = shipCells.length / BitBoard.WORDS;
+        this.shipLengths = new int[shipCount];
+        this.shipCells = shipCells;
+        this.shipIndexAtCell = new byte[BitBoard.CELLS];
+        this.firedUpon = BitBoard.create();
+        this.shipStrengths = new int[shipCount];
+        Arrays.fill(shipIndexAtCell, (byte) -1);
+        for (int ship = 0; ship < shipCount; ship++)
+            for (int word = 0; word < BitBoard.WORDS; word++)
+                shipLengths[ship] += Long.bitCount(shipCells[ship * BitBoard.WORDS + word]);
+        registerShipCells();
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            if (BitBoard.get(cellsFiredUpon, cellIndex))
+                shoot(cellIndex);
+    }
+
+    private FleetState(FleetState original) {
+        this.shipCount = original.shipCount;
+        this.shipLengths = original.shipLengths;
+        this.shipCells = original.shipCells;
+        this.shipIndexAtCell = original.shipIndexAtCell;
+        this.firedUpon = original.firedUpon.clone();
+        this.shipStrengths = original.shipStrengths.clone();
+        this.strength = original.strength;
+        this.shipsAfloat = original.shipsAfloat;
+    }
+
+    private void registerShipCells() {
+        for (int ship = 0; ship < shipCount; ship++) {
+            for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++) {
+                if ((shipCells[ship * BitBoard.WORDS + (cellIndex >>> 6)] & (1L << cellIndex)) == 0)
+                    continue;
+                if (shipIndexAtCell[cellIndex] >= 0)
+                    throw new IllegalArgumentException("Two ships cannot share a cell.");
+                shipIndexAtCell[cellIndex] = (byte) ship;
+                shipStrengths[ship]++;
+                strength++;
+            }
+            if (shipStrengths[ship] > 0)
+                shipsAfloat++;
+        }
+    }
+
+    /**
+     * @return an independent copy; shots at either one do not affect the other.
+     */
+    public FleetState copy() {
+        return new FleetState(this);
+    }
+
+    /**
+     * Fires at the given cell (see BitBoard).
+     */
+    public ShotResult shoot(int cellIndex) {
+        if (BitBoard.get(firedUpon, cellIndex))
+            return ShotResult.REPEATED;
+        BitBoard.set(firedUpon, cellIndex);
+        int ship = shipIndexAtCell[cellIndex];
+        if (ship < 0)
+            return ShotResult.MISS;
+        strength--;
+        if (--shipStrengths[ship] > 0)
+            return ShotResult.HIT;
+        shipsAfloat--;
+        return ShotResult.SUNK;
+    }
+
+    /**
+     * Sinks the given ship at once, as if every one of its cells had been fired upon.
+     */
+    public void sink(int ship) {
+        if (shipStrengths[ship] == 0)
+            return;
+        int offset = ship * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            firedUpon[word] |= shipCells[offset + word];
+        strength -= shipStrengths[ship];
+        shipStrengths[ship] = 0;
+        shipsAfloat--;
+    }
+
+    public boolean hasBeenFiredUpon(int cellIndex) {
+        return BitBoard.get(firedUpon, cellIndex);
+    }
+
+    /**
+     * @return the index of the ship at the given cell, or -1 for open water.
+     */
+    public int shipIndexAt(int cellIndex) {
+        return shipIndexAtCell[cellIndex];
+    }
+
+    public int shipCount() {
+        return shipCount;
+    }
+
+    public int shipLength(int ship) {
+        return shipLengths[ship];
+    }
+
+    public boolean shipIsSunk(int ship) {
+        return shipStrengths[ship] == 0;
+    }
+
+    /**
+     * @return the number of ship cells that have not been hit yet.
+     */
+    public int strength() {
+        return strength;
+    }
+
+    public boolean isDefeated() {
+        return shipsAfloat == 0;
+    }
+
+    public void copyFiredUponTo(long[] target) {
+        BitBoard.copy(firedUpon, target);
+    }
+
+    /**
+     * Adds the cells of the given ship to the set.
+     */
+    public void addShipCellsTo(int ship, long[] target) {
+        int offset = ship * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            target[word] |= shipCells[offset + word];
+    }
+}
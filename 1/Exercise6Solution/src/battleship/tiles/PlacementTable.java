@@ -0,0 +1,282 @@
+package battleship.tiles;
+
+import java.util.Arrays;
+
+import battleship.handling.Settings;
+import battleship.tiles.Fleet.Orientation;
+import battleship.utilities.BitBoard;
+import battleship.utilities.Coordinates;
+import battleship.utilities.NeighbourTable;
+
+/**
+ * A placement table lists every way a ship of one particular length can be put onto the
+ * playing field, i.e. every combination of origin and orientation that fits. Each placement
+ * is numbered and comes with two bit sets (see BitBoard): the cells the ship would occupy,
+ * and its "halo", which are the cells that must not already be occupied by other ships.
+ * The halo is the ship's cells plus their neighbours, unless adjacent ships are allowed by
+ * the Settings, in which case it is just the ship's cells.
+ *
+ * With that, whether a placement is legal in a fleet is a single AND, either of its halo
+ * against the fleet's occupied cells, or of its cells against the fleet's blocked cells
+ * (the union of the halos of the ships already placed). The tables only depend on the
+ * Settings, so they are built once, when they are first needed, and shared by everyone.
+ *
+ * The table can also be read the other way round: for every cell, it lists the placements
+ * covering it, so that whoever keeps track of placements can find the ones affected by a
+ * change to a single cell without going through all of them.
+ */
+public class PlacementTable {
+
+    private final int           shipLength;
+    private final int           placements;
+    private final int[]         origins;
+    private final Orientation[] orientations;
+
+    /**
+     * The bit sets of all placements, one after another; placement number p uses the longs
+     * from p * BitBoard.WORDS up to (but not including) (p + 1) * BitBoard.WORDS.
+     */
+    private final long[]        cells;
+    private final long[]        halos;
+
+    /**
+     * Maps an origin's cell index and an orientation to a placement number, or -1 if a ship
+     * starting there would not fit onto the playing field.
+     */
+    private final int[]         placementByOrigin;
+
+    /**
+     * The cells from which a ship of this length fits onto the playing field, for either
+     * orientation.
+     */
+    private final long[]        horizontalOrigins;
+    private final long[]        verticalOrigins;
+
+    /**
+     * The placements covering cell c are stored in coveringPlacements from
+     * firstCoveringPlacement[c] up to (but not including) firstCoveringPlacement[c + 1].
+     */
+    private final int[]         coveringPlacements;
+    private final int[]         firstCoveringPlacement;
+
+    private PlacementTable(int shipLength) {
+        this.shipLength = shipLength;
+        int width = Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+        int height = Settings.PLAYING_FIELD_VERTICAL_SIZE;
+        int horizontalPlacements = Math.max(0, width - shipLength + 1) * height;
+        int verticalPlacements = width * Math.max(0, height - shipLength + 1);
+        this.placements = horizontalPlacements + verticalPlacements;
+        this.origins = new int[placements];
+        this.orientations = new Orientation[placements];
+        this.cells = new long[placements * BitBoard.WORDS];
+        this.halos = Settings.ALLOW_ADJACENT_SHIP_PLACEMENT
+                ? cells : new long[placements * BitBoard.WORDS];
+        this.placementByOrigin = new int[BitBoard.CELLS * 2];
+        Arrays.fill(placementByOrigin, -1);
+        this.horizontalOrigins = BitBoard.create();
+        this.verticalOrigins = BitBoard.create();
+
+        int placement = 0;
+        for (Orientation orientation : Orientation.values()) {
+            int dx = orientation == Orientation.HORIZONTAL ? 1 : 0;
+            int dy = 1 - dx;
+            for (int y = 0; y + (shipLength - 1) * dy < height; y++) {
+                for (int x = 0; x + (shipLength - 1) * dx < width; x++) {
+                    int origin = BitBoard.cellIndex(x, y);
+                    origins[placement] = origin;
+                    orientations[placement] = orientation;
+                    placementByOrigin[origin * 2 + orientation.ordinal()] = placement;
+                    BitBoard.set(orientation == Orientation.HORIZONTAL
+                            ? horizontalOrigins : verticalOrigins, origin);
+                    for (int i = 0; i < shipLength; i++)
+                        addCell(placement, x + i * dx, y + i * dy);
+                    placement++;
+                }
+            }
+        }
+
+        this.coveringPlacements = new int[placements * shipLength];
+        this.firstCoveringPlacement = new int[BitBoard.CELLS + 1];
+        for (placement = 0; placement < placements; placement++)
+            for (int i = 0; i < shipLength; i++)
+                firstCoveringPlacement[cell(placement, i) + 1]++;
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            firstCoveringPlacement[cellIndex + 1] += firstCoveringPlacement[cellIndex];
+        int[] filled = Arrays.copyOf(firstCoveringPlacement, BitBoard.CELLS);
+        for (placement = 0; placement < placements; placement++)
+            for (int i = 0; i < shipLength; i++)
+                coveringPlacements[filled[cell(placement, i)]++] = placement;
+    }
+
+    private void addCell(int placement, int x, int y) {
+        int offset = placement * BitBoard.WORDS;
+        int cellIndex = BitBoard.cellIndex(x, y);
+        cells[offset + (cellIndex >>> 6)] |= 1L << cellIndex;
+        if (Settings.ALLOW_ADJACENT_SHIP_PLACEMENT)
+            return;
+        halos[offset + (cellIndex >>> 6)] |= 1L << cellIndex;
+        NeighbourTable.addNeighboursTo(cellIndex, halos, offset);
+    }
+
+    /**
+     * @return the shared table for ships of the given length. A ship longer than both sides of
+     * the playing field fits nowhere; it gets an empty table, built anew on every call, so that
+     * such a fleet is reported as one that cannot be set up rather than failing here.
+     */
+    public static PlacementTable forShipLength(int shipLength) {
+        if (shipLength < 1)
+            throw new IllegalArgumentException("There is no placement table for ships of length "
+                    + shipLength + ".");
+        if (shipLength > Cache.TABLES.length)
+            return new PlacementTable(shipLength);
+        return Cache.TABLES[shipLength - 1];
+    }
+
+    /**
+     * The tables are only built when this class is first accessed. The Java runtime
+     * guarantees that happens exactly once, even when several threads ask at the same time.
+     */
+    private static class Cache {
+        static final PlacementTable[] TABLES = new PlacementTable[Math.max(
+                Settings.PLAYING_FIELD_HORIZONTAL_SIZE, Settings.PLAYING_FIELD_VERTICAL_SIZE)];
+        static {
+            for (int length = 1; length <= TABLES.length; length++)
+                TABLES[length - 1] = new PlacementTable(length);
+        }
+    }
+
+    public int shipLength() {
+        return shipLength;
+    }
+
+    /**
+     * @return the number of placements in this table.
+     */
+    public int size() {
+        return placements;
+    }
+
+    /**
+     * @return the placement number for a ship starting at (x, y), or -1 if it does not fit.
+     */
+    public int placementAt(int x, int y, Orientation orientation) {
+        if (!Coordinates.coordinateIsWithinPlayingField(x, y))
+            return -1;
+        return placementByOrigin[BitBoard.cellIndex(x, y) * 2 + orientation.ordinal()];
+    }
+
+    /**
+     * @return the placement number for a ship starting at the given cell, or -1 if it does not fit.
+     */
+    public int placementAt(int cellIndex, Orientation orientation) {
+        return placementByOrigin[cellIndex * 2 + orientation.ordinal()];
+    }
+
+    /**
+     * @return the cells from which a ship of this length, in this orientation, fits onto the
+     * playing field. This is the table's own array, which must not be changed.
+     */
+    public long[] validOrigins(Orientation orientation) {
+        return orientation == Orientation.HORIZONTAL ? horizontalOrigins : verticalOrigins;
+    }
+
+    public int origin(int placement) {
+        return origins[placement];
+    }
+
+    public Orientation orientation(int placement) {
+        return orientations[placement];
+    }
+
+    /**
+     * @return the i-th cell (counting from 0, starting at the origin) that the placement covers.
+     */
+    public int cell(int placement, int i) {
+        int step = orientations[placement] == Orientation.HORIZONTAL
+                ? 1 : Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+        return origins[placement] + i * step;
+    }
+
+    /**
+     * @return how many placements cover the given cell.
+     */
+    public int coveringCount(int cellIndex) {
+        return firstCoveringPlacement[cellIndex + 1] - firstCoveringPlacement[cellIndex];
+    }
+
+    /**
+     * @return the n-th placement (counting from 0) covering the given cell, for n below
+     * coveringCount(cellIndex).
+     */
+    public int covering(int cellIndex, int n) {
+        return coveringPlacements[firstCoveringPlacement[cellIndex] + n];
+    }
+
+    /**
+     * @return whether the placement's halo shares no cell with the given occupied cells.
+     */
+    public boolean isFree(int placement, long[] occupied) {
+        return isFree(placement, occupied, 0);
+    }
+
+    /**
+     * Same as above, for a bit set stored in a larger array, starting at the given offset.
+     */
+    public boolean isFree(int placement, long[] occupied, int occupiedOffset) {
+        int offset = placement * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            if ((halos[offset + word] & occupied[occupiedOffset + word]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * @return whether the placement's cells share no cell with the given blocked cells.
+     */
+    public boolean avoids(int placement, long[] blocked) {
+        int offset = placement * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            if ((cells[offset + word] & blocked[word]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * @return whether the placement covers the given cell.
+     */
+    public boolean covers(int placement, int cellIndex) {
+        return (cells[placement * BitBoard.WORDS + (cellIndex >>> 6)] & (1L << cellIndex)) != 0;
+    }
+
+    /**
+     * Adds the placement's cells to the given set.
+     */
+    public void addCellsTo(int placement, long[] target) {
+        addCellsTo(placement, target, 0);
+    }
+
+    /**
+     * Same as above, for a bit set stored in a larger array, starting at the given offset.
+     */
+    public void addCellsTo(int placement, long[] target, int targetOffset) {
+        int offset = placement * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            target[targetOffset + word] |= cells[offset + word];
+    }
+
+    /**
+     * Adds the placement's halo to the given set.
+     */
+    public void addHaloTo(int placement, long[] target) {
+        addHaloTo(placement, target, 0);
+    }
+
+    /**
+     * Same as above, for a bit set stored in a larger array, starting at the given offset.
+     */
+    public void addHaloTo(int placement, long[] target, int targetOffset) {
+        int offset = placement * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            target[targetOffset + word] |= halos[offset + word];
+    }
+}
@@ -0,0 +1,86 @@
+package battleship.tiles;
+
+import battleship.ships.Ship;
+import battleship.utilities.Coordinates;
+
+/**
+ * The outcome of a salvo, i.e. of all shots one player fires in one turn under the salvo
+ * rule, which a fleet resolves in one go (see Fleet.receiveSalvo()). For every shot, in the
+ * order they were fired, it holds the coordinates, the ShotResult, and the ship that was
+ * hit, if any. The shots land one after the other, so a later shot at the same cell is
+ * REPEATED, and a ship may be hit by some shots of a salvo and sunk by a later one.
+ */
+public class SalvoResult {
+
+    private final Coordinates[] shots;
+    private final ShotResult[]  results;
+    private final Ship[]        ships;
+    private final boolean[]     shipWasAlreadySunk;
+    private int                 size = 0;
+
+    SalvoResult(int capacity) {
+        this.shots = new Coordinates[capacity];
+        this.results = new ShotResult[capacity];
+        this.ships = new Ship[capacity];
+        this.shipWasAlreadySunk = new boolean[capacity];
+    }
+
+    void add(Coordinates coordinates, ShotResult result, Ship ship, boolean alreadySunk) {
+        shots[size] = coordinates;
+        results[size] = result;
+        ships[size] = ship;
+        shipWasAlreadySunk[size] = alreadySunk;
+        size++;
+    }
+
+    /**
+     * @return the number of shots in the salvo.
+     */
+    public int size() {
+        return size;
+    }
+
+    public Coordinates coordinates(int shot) {
+        return shots[shot];
+    }
+
+    public ShotResult result(int shot) {
+        return results[shot];
+    }
+
+    /**
+     * @return the ship at the shot's coordinates, or null for open water.
+     */
+    public Ship ship(int shot) {
+        return ships[shot];
+    }
+
+    /**
+     * @return whether a REPEATED shot hit a ship that had already been sunk before it.
+     */
+    public boolean shipWasAlreadySunk(int shot) {
+        return shipWasAlreadySunk[shot];
+    }
+
+    /**
+     * @return the number of shots that hit an intact part of a ship, including those that sank it.
+     */
+    public int hits() {
+        int hits = 0;
+        for (int shot = 0; shot < size; shot++)
+            if (results[shot].isAHit())
+                hits++;
+        return hits;
+    }
+
+    /**
+     * @return the number of ships sunk by the salvo.
+     */
+    public int shipsSunk() {
+        int sunk = 0;
+        for (int shot = 0; shot < size; shot++)
+            if (results[shot] == ShotResult.SUNK)
+                sunk++;
+        return sunk;
+    }
+}
@@ -0,0 +1,24 @@
+package battleship.tiles;
+
+/**
+ * The density kernel for runtimes without the Vector API: the same work, one int at a time.
+ */
+class ScalarDensityKernel extends DensityKernel {
+
+    @Override
+    protected void addWindowsAcrossLines(int[] open, int lines, int lineLength, int length,
+            int[] coverage) {
+        int span = (lines - length + 1) * lineLength;
+        System.arraycopy(open, 0, windows, 0, span);
+        for (int k = 1; k < length; k++) {
+            int shift = k * lineLength;
+            for (int j = 0; j < span; j++)
+                windows[j] &= open[j + shift];
+        }
+        for (int k = 0; k < length; k++) {
+            int shift = k * lineLength;
+            for (int j = 0; j < span; j++)
+                coverage[j + shift] += windows[j];
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package battleship.tiles;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import battleship.tiles.Fleet.Orientation;
+import battleship.utilities.BitBoard;
+
+/**
+ * A sequential fleet sampler draws complete, legal fleet layouts for a given set of ship
+ * lengths, one ship after the other: each ship is put onto one of the placements (see
+ * PlacementTable) that are still legal after the ships before it, every one of them equally
+ * likely. Should a ship find no legal placement left, sample() goes back and tries another
+ * placement for the ship before, so it never fails as long as at least one legal layout
+ * exists at all.
+ *
+ * The layouts drawn this way are NOT all equally likely: a layout is more likely the fewer
+ * placements its ships had to choose from along the way, which e.g. puts ships into the
+ * corners less often than they are in legal layouts overall. sampleWeighted() therefore draws
+ * without going back and returns each layout's weight, the inverse of how likely it was to be
+ * drawn; averages over many layouts, each counted with its weight, then estimate the averages
+ * over all legal layouts, every one equally likely. sampleNearlyUniform() uses those weights to
+ * pick one layout out of many, which comes as close to equally likely as the number of layouts
+ * drawn allows. Drawing uniformly outright is out of reach for dense fleets such as the
+ * default one: hardly one in a billion layouts of independently placed ships is legal, the
+ * legal ones are far too many to count or list, and the weights have no useful upper bound to
+ * reject layouts against.
+ *
+ * To make that fast, the sampler works out once, for every placement, which origins it rules
+ * out for every other ship length. Placing a ship then only takes a few ORs of those masks,
+ * and the legal placements of the next ship are the valid origins that are not ruled out.
+ *
+ * Cells can be blocked (see setBlockedCells()), e.g. where a player has already missed; no
+ * ship is then put onto them. That only changes which origins are ruled out from the start.
+ * Ships can also be left out (see leaveOut()), e.g. once they have been sunk, so that one
+ * sampler serves a whole game.
+ *
+ * The longest ships are placed first, as they are the hardest to fit. Those masks are worked
+ * out only once for each set of ship lengths and shared by all samplers for it. Once
+ * constructed, a sampler allocates nothing, but it is not safe to share between threads.
+ */
+public class SequentialFleetSampler {
+
+    /**
+     * The number of longs in a set of origins for both orientations: first the horizontal
+     * origins, then the vertical ones.
+     */
+    private static final int        ORIGIN_WORDS = 2 * BitBoard.WORDS;
+
+    private final int               shipCount;
+
+    /**
+     * The position in the caller's list of ship lengths for each ship, in sampling order, and
+     * the other way round.
+     */
+    private final int[]             order;
+    private final int[]             depthOfShip;
+
+    /**
+     * Which ships are left out of the layouts, in sampling order, and the depths of those that
+     * are not; a draw places the ship at depth shipAtStep[s] in step s.
+     */
+    private final boolean[]         isLeftOut;
+    private final int[]             shipAtStep;
+    private int                     steps;
+
+    /**
+     * The tables below only depend on the ship lengths, so samplers for the same lengths share them.
+     */
+    private final PlacementTable[]  tableForSlot;
+    private final int[]             slotOfShip;
+    private final long[]            validOriginsForSlot;
+    private final long[]            conflicts;
+    private final int[]             conflictOffsetForSlot;
+
+    /**
+     * The origins ruled out for each slot before each step; one block of slots * ORIGIN_WORDS
+     * per step, plus one for the finished layout.
+     */
+    private final long[]            ruledOutBeforeStep;
+
+    /**
+     * The origins ruled out for each slot before the first ship is placed, because of blocked cells.
+     */
+    private final long[]            initiallyRuledOut;
+
+    /**
+     * For each step, the origins of its ship's placements that are still to be tried.
+     */
+    private final long[]            candidateOrigins;
+    private final int[]             remainingCandidates;
+    private final int[]             chosenPlacements;
+    private final int[]             drawnPlacements;
+
+    private static final ConcurrentMap<String, ConflictTables> TABLES_BY_SHIP_LENGTHS =
+            new ConcurrentHashMap<String, ConflictTables>();
+
+    /**
+     * @param shipLengths the lengths of the ships to place; the placements returned by
+     * sample() will be in the same order.
+     */
+    public SequentialFleetSampler(int[] shipLengths) {
+        this.shipCount = shipLengths.length;
+        this.order = new int[shipCount];
+        for (int i = 0; i < shipCount; i++)
+            order[i] = i;
+        // Sort the longest ships to the front; there are few enough for insertion sort.
+        for (int i = 1; i < shipCount; i++)
+            for (int j = i; j > 0 && shipLengths[order[j]] > shipLengths[order[j - 1]]; j--) {
+                int swap = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = swap;
+            }
+
+        int[] sortedLengths = new int[shipCount];
+        for (int i = 0; i < shipCount; i++)
+            sortedLengths[i] = shipLengths[order[i]];
+        String key = Arrays.toString(sortedLengths);
+        ConflictTables shared = TABLES_BY_SHIP_LENGTHS.get(key);
+        if (shared == null) {
+            ConflictTables built = new ConflictTables(sortedLengths);
+            shared = TABLES_BY_SHIP_LENGTHS.putIfAbsent(key, built);
+            if (shared == null)
+                shared = built;
+        }
+        this.tableForSlot = shared.tableForSlot;
+        this.slotOfShip = shared.slotOfShip;
+        this.validOriginsForSlot = shared.validOriginsForSlot;
+        this.conflicts = shared.conflicts;
+        this.conflictOffsetForSlot = shared.conflictOffsetForSlot;
+
+        this.depthOfShip = new int[shipCount];
+        for (int depth = 0; depth < shipCount; depth++)
+            depthOfShip[order[depth]] = depth;
+        this.isLeftOut = new boolean[shipCount];
+        this.shipAtStep = new int[shipCount];
+        includeAllShips();
+
+        int slots = tableForSlot.length;
+        this.ruledOutBeforeStep = new long[(shipCount + 1) * slots * ORIGIN_WORDS];
+        this.initiallyRuledOut = new long[slots * ORIGIN_WORDS];
+        this.candidateOrigins = new long[shipCount * ORIGIN_WORDS];
+        this.remainingCandidates = new int[shipCount];
+        this.chosenPlacements = new int[shipCount];
+        this.drawnPlacements = new int[shipCount];
+    }
+
+    /**
+     * Everything a sampler works out in advance for one set of ship lengths, sorted longest first.
+     * These tables are never changed after construction, so they can be shared between threads.
+     */
+    private static class ConflictTables {
+
+        /**
+         * The different ship lengths in the fleet are numbered; a ship's length number is its slot.
+         */
+        final PlacementTable[]  tableForSlot;
+        final int[]             slotOfShip;
+        final long[]            validOriginsForSlot;
+
+        /**
+         * For each slot, each placement in that slot's table, and each target slot: the origins of
+         * the target slot that the placement rules out. Laid out in that order, ORIGIN_WORDS each.
+         */
+        final long[]            conflicts;
+        final int[]             conflictOffsetForSlot;
+
+        ConflictTables(int[] sortedLengths) {
+            int shipCount = sortedLengths.length;
+            // Since the ships are sorted, equal lengths are next to each other.
+            this.slotOfShip = new int[shipCount];
+            int slots = 0;
+            for (int i = 0; i < shipCount; i++) {
+                if (i > 0 && sortedLengths[i] != sortedLengths[i - 1])
+                    slots++;
+                slotOfShip[i] = slots;
+            }
+            if (shipCount > 0)
+                slots++;
+
+            this.tableForSlot = new PlacementTable[slots];
+            this.validOriginsForSlot = new long[slots * ORIGIN_WORDS];
+            for (int i = 0; i < shipCount; i++)
+                tableForSlot[slotOfShip[i]] = PlacementTable.forShipLength(sortedLengths[i]);
+            for (int slot = 0; slot < slots; slot++) {
+                System.arraycopy(tableForSlot[slot].validOrigins(Orientation.HORIZONTAL), 0,
+                        validOriginsForSlot, slot * ORIGIN_WORDS, BitBoard.WORDS);
+                System.arraycopy(tableForSlot[slot].validOrigins(Orientation.VERTICAL), 0,
+                        validOriginsForSlot, slot * ORIGIN_WORDS + BitBoard.WORDS, BitBoard.WORDS);
+            }
+
+            this.conflictOffsetForSlot = new int[slots];
+            int conflictWords = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                conflictOffsetForSlot[slot] = conflictWords;
+                conflictWords += tableForSlot[slot].size() * slots * ORIGIN_WORDS;
+            }
+            this.conflicts = new long[conflictWords];
+            long[] placedCells = BitBoard.create();
+            for (int slot = 0; slot < slots; slot++) {
+                PlacementTable table = tableForSlot[slot];
+                for (int placement = 0; placement < table.size(); placement++) {
+                    BitBoard.clearAll(placedCells);
+                    table.addCellsTo(placement, placedCells);
+                    for (int targetSlot = 0; targetSlot < slots; targetSlot++) {
+                        PlacementTable target = tableForSlot[targetSlot];
+                        int offset = conflictOffsetForSlot[slot]
+                                + (placement * slots + targetSlot) * ORIGIN_WORDS;
+                        for (int other = 0; other < target.size(); other++) {
+                            if (target.isFree(other, placedCells))
+                                continue;
+                            int origin = target.origin(other);
+                            int word = (target.orientation(other) == Orientation.HORIZONTAL
+                                    ? 0 : BitBoard.WORDS) + (origin >>> 6);
+                            conflicts[offset + word] |= 1L << origin;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int conflictOffset(int slot, int placement, int targetSlot) {
+        return conflictOffsetForSlot[slot]
+                + (placement * tableForSlot.length + targetSlot) * ORIGIN_WORDS;
+    }
+
+    /**
+     * Keeps all ships drawn from now on off the given cells.
+     */
+    public void setBlockedCells(long[] blocked) {
+        Arrays.fill(initiallyRuledOut, 0L);
+        for (int slot = 0; slot < tableForSlot.length; slot++) {
+            PlacementTable table = tableForSlot[slot];
+            for (int placement = 0; placement < table.size(); placement++) {
+                if (table.avoids(placement, blocked))
+                    continue;
+                int origin = table.origin(placement);
+                int word = slot * ORIGIN_WORDS
+                        + (table.orientation(placement) == Orientation.HORIZONTAL ? 0 : BitBoard.WORDS)
+                        + (origin >>> 6);
+                initiallyRuledOut[word] |= 1L << origin;
+            }
+        }
+    }
+
+    /**
+     * Leaves the given ship out of the layouts drawn from now on, e.g. because it has been sunk;
+     * its placement is then reported as -1.
+     */
+    public void leaveOut(int ship) {
+        isLeftOut[depthOfShip[ship]] = true;
+        collectSteps();
+    }
+
+    /**
+     * Puts every ship left out back into the layouts drawn from now on.
+     */
+    public void includeAllShips() {
+        Arrays.fill(isLeftOut, false);
+        collectSteps();
+    }
+
+    private void collectSteps() {
+        steps = 0;
+        for (int depth = 0; depth < shipCount; depth++)
+            if (!isLeftOut[depth])
+                shipAtStep[steps++] = depth;
+    }
+
+    /**
+     * Draws one layout.
+     * @param placements receives, for each ship, its placement number in the PlacementTable for
+     * its length.
+     * @throws IllegalStateException if the ships cannot be fitted onto the playing field at all,
+     * away from the blocked cells.
+     */
+    public void sample(SplittableRandom random, int[] placements) {
+        System.arraycopy(initiallyRuledOut, 0, ruledOutBeforeStep, 0, tableForSlot.length * ORIGIN_WORDS);
+        int step = 0;
+        if (steps > 0)
+            collectCandidates(0);
+
+        while (step < steps) {
+            if (remainingCandidates[step] == 0) {
+                if (step == 0)
+                    throw new IllegalStateException("These ships cannot be fitted onto the playing field.");
+                // Try another placement for the previous ship.
+                step--;
+                continue;
+            }
+            place(step, takeCandidate(step, random.nextInt(remainingCandidates[step])));
+            step++;
+            if (step < steps)
+                collectCandidates(step);
+        }
+        reportPlacements(placements);
+    }
+
+    /**
+     * Draws one layout without going back when a ship finds no legal placement left.
+     * @param placements receives, for each ship, its placement number in the PlacementTable for
+     * its length.
+     * @return the number of placements each ship had to choose from, multiplied, so that the layout
+     * was drawn with a probability of one over this weight; or 0 if a ship found no placement left,
+     * in which case placements holds nothing useful.
+     */
+    public double sampleWeighted(SplittableRandom random, int[] placements) {
+        System.arraycopy(initiallyRuledOut, 0, ruledOutBeforeStep, 0, tableForSlot.length * ORIGIN_WORDS);
+        double weight = 1.0;
+        for (int step = 0; step < steps; step++) {
+            collectCandidates(step);
+            int candidates = remainingCandidates[step];
+            if (candidates == 0)
+                return 0.0;
+            weight *= candidates;
+            place(step, takeCandidate(step, random.nextInt(candidates)));
+        }
+        reportPlacements(placements);
+        return weight;
+    }
+
+    /**
+     * Draws the given number of layouts with sampleWeighted() and keeps one of them, each with a
+     * probability in proportion to its weight. The more layouts are drawn, the closer that comes
+     * to every legal layout being equally likely.
+     * @param placements receives, for each ship, its placement number in the PlacementTable for
+     * its length.
+     * @throws IllegalStateException if the ships cannot be fitted onto the playing field at all,
+     * away from the blocked cells.
+     */
+    public void sampleNearlyUniform(SplittableRandom random, int[] placements, int layouts) {
+        double totalWeight = 0.0;
+        for (int i = 0; i < layouts; i++) {
+            double weight = sampleWeighted(random, drawnPlacements);
+            if (weight == 0.0)
+                continue;
+            // Replacing the kept layout with this probability keeps each layout drawn so far
+            // with a probability in proportion to its weight.
+            totalWeight += weight;
+            if (random.nextDouble() * totalWeight < weight)
+                System.arraycopy(drawnPlacements, 0, placements, 0, shipCount);
+        }
+        // Every draw ran into a dead end; going back at least finds a layout, if there is one.
+        if (totalWeight == 0.0)
+            sample(random, placements);
+    }
+
+    private void reportPlacements(int[] placements) {
+        for (int depth = 0; depth < shipCount; depth++)
+            placements[order[depth]] = -1;
+        for (int step = 0; step < steps; step++)
+            placements[order[shipAtStep[step]]] = chosenPlacements[step];
+    }
+
+    /**
+     * Puts the ship of the given step onto the given placement and rules out what that
+     * placement conflicts with.
+     */
+    private void place(int step, int placement) {
+        chosenPlacements[step] = placement;
+        int blockWords = tableForSlot.length * ORIGIN_WORDS;
+        int from = step * blockWords;
+        int to = from + blockWords;
+        int conflictOffset = conflictOffset(slotOfShip[shipAtStep[step]], placement, 0);
+        for (int word = 0; word < blockWords; word++)
+            ruledOutBeforeStep[to + word] = ruledOutBeforeStep[from + word]
+                    | conflicts[conflictOffset + word];
+    }
+
+    private void collectCandidates(int step) {
+        int slot = slotOfShip[shipAtStep[step]];
+        int ruledOutOffset = (step * tableForSlot.length + slot) * ORIGIN_WORDS;
+        int validOffset = slot * ORIGIN_WORDS;
+        int candidateOffset = step * ORIGIN_WORDS;
+        int found = 0;
+        for (int word = 0; word < ORIGIN_WORDS; word++) {
+            long origins = validOriginsForSlot[validOffset + word]
+                    & ~ruledOutBeforeStep[ruledOutOffset + word];
+            candidateOrigins[candidateOffset + word] = origins;
+            found += Long.bitCount(origins);
+        }
+        remainingCandidates[step] = found;
+    }
+
+    /**
+     * Removes the n-th remaining candidate of the given step and returns its placement number.
+     */
+    private int takeCandidate(int step, int n) {
+        int candidateOffset = step * ORIGIN_WORDS;
+        for (int word = 0; word < ORIGIN_WORDS; word++) {
+            long origins = candidateOrigins[candidateOffset + word];
+            int count = Long.bitCount(origins);
+            if (n < count) {
+                int bit = BitBoard.selectInWord(origins, n);
+                candidateOrigins[candidateOffset + word] = origins & ~(1L << bit);
+                remainingCandidates[step]--;
+                Orientation orientation = word < BitBoard.WORDS ? Orientation.HORIZONTAL : Orientation.VERTICAL;
+                int cellIndex = (word % BitBoard.WORDS) * 64 + bit;
+                return tableForSlot[slotOfShip[shipAtStep[step]]].placementAt(cellIndex, orientation);
+            }
+            n -= count;
+        }
+        throw new IllegalStateException("No candidate left to take.");
+    }
+}
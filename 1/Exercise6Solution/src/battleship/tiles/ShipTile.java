@@ -12,13 +12,33 @@ public class ShipTile extends Tile {
     private Ship ship;
 
     public ShipTile (int horizontalIndex, int verticalIndex, Ship ship, Fleet fleet) {
-        this(new Coordinates(horizontalIndex, verticalIndex), ship, fleet);
+        this(Coordinates.of(horizontalIndex, verticalIndex), ship, fleet);
     }
 
     public ShipTile(Coordinates coordinates, Ship ship, Fleet fleet) {
         super(coordinates, fleet);
         this.ship = ship;
         this.ship.associateWithTile(this);
+        fleet.registerShipTile(ship);
+    }
+
+    /**
+     * Puts this tile, which its ship has kept from an earlier game, back onto the playing field
+     * at the given coordinates, intact, just as if it had been created there.
+     */
+    void placeAt(Coordinates coordinates) {
+        resetTo(coordinates);
+        ship.associateWithTile(this);
+        fleet.registerShipTile(ship);
+    }
+
+    @Override
+    protected void markAsHavingBeenFiredUpon() {
+        if (hasBeenFiredUpon)
+            return;
+        super.markAsHavingBeenFiredUpon();
+        ship.registerHit();
+        fleet.registerHit(ship);
     }
 
     @Override
@@ -26,19 +46,18 @@ public class ShipTile extends Tile {
     public void fireAtThisTile(Player observer) {
         if (ship.isSunk()) {
             observer.youKeepFiringAtASunkShip(this.getCoordinates(), ship);
-            getPlayer().theEnemyKeepsFiringAtASunkShip(this.getCoordinates(), ship);
+            getPlayer().theEnemyKeepsFiringAtASunkShip(observer, this.getCoordinates(), ship);
         } else if (hasBeenFiredUpon) {
             observer.youKeepFiringAtTheSameHole(getCoordinates());
-            System.out.print("DAMNDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDDD");
-            getPlayer().theEnemyKeepsFiringAtTheSameHole(this.getCoordinates(), ship);
+            getPlayer().theEnemyKeepsFiringAtTheSameHole(observer, this.getCoordinates(), ship);
         } else {
             markAsHavingBeenFiredUpon();
             if (ship.isSunk()) {
                 observer.youHaveSunkAnEnemyShip(this.getCoordinates(), ship);
-                getPlayer().yourShipHasBeenSunk(this.getCoordinates(), ship);
+                getPlayer().yourShipHasBeenSunk(observer, this.getCoordinates(), ship);
             } else {
                 observer.youHaveHitYourTarget(this.getCoordinates());
-                getPlayer().youHaveBeenHit(this.getCoordinates(), ship);
+                getPlayer().youHaveBeenHit(observer, this.getCoordinates(), ship);
             }
         }
     }
@@ -0,0 +1,13 @@
+package battleship.tiles;
+
+/**
+ * The outcome of a shot at a FleetState. REPEATED means the cell had already been
+ * fired upon, so the shot changed nothing.
+ */
+public enum ShotResult {
+    MISS, HIT, SUNK, REPEATED;
+
+    public boolean isAHit() {
+        return this == HIT || this == SUNK;
+    }
+}
@@ -18,7 +18,7 @@ public class Tile {
     protected boolean	hasBeenFiredUpon	= false;
 
     public Tile(int horizontalIndex, int verticalIndex, Fleet fleet) {
-        this(new Coordinates (horizontalIndex, verticalIndex), fleet);
+        this(Coordinates.of(horizontalIndex, verticalIndex), fleet);
     }
 
     public Tile(Coordinates coordinates, Fleet fleet) {
@@ -29,10 +29,10 @@ public class Tile {
     public void fireAtThisTile(Player observer) {
         if (hasBeenFiredUpon) {
             observer.youKeepFiringAtNothing(getCoordinates());
-            getPlayer().theEnemyKeepsFiringAtNothing(this.getCoordinates());
+            getPlayer().theEnemyKeepsFiringAtNothing(observer, this.getCoordinates());
         } else {
             observer.youHaveMissed(getCoordinates());
-            getPlayer().youHaveBeenMissed(this.getCoordinates());
+            getPlayer().youHaveBeenMissed(observer, this.getCoordinates());
             markAsHavingBeenFiredUpon();
         }
     }
@@ -41,6 +41,15 @@ public class Tile {
         this.hasBeenFiredUpon = true;
     }
 
+    /**
+     * Moves this tile to the given coordinates, not fired upon, so that it can be used in
+     * another game instead of a new one.
+     */
+    void resetTo(Coordinates coordinates) {
+        this.coordinates = coordinates;
+        this.hasBeenFiredUpon = false;
+    }
+
     @Override
     public String toString() {
         return StringManipulation.indexToLetter(coordinates.x) + "" + coordinates.y;
@@ -0,0 +1,170 @@
+package battleship.utilities;
+
+import battleship.handling.Settings;
+
+/**
+ * This class offers utility functions for treating an array of longs as a
+ * set of cells on the playing field. Every cell is identified by a single
+ * index, counting along the horizontal axis first: the index of (x, y)
+ * is x + y * PLAYING_FIELD_HORIZONTAL_SIZE. Each long holds 64 cells, so
+ * a whole board fits into WORDS longs, however big the Settings make it.
+ */
+public class BitBoard {
+
+    public static final int CELLS = Settings.PLAYING_FIELD_HORIZONTAL_SIZE * Settings.PLAYING_FIELD_VERTICAL_SIZE;
+    public static final int WORDS = (CELLS + 63) >>> 6;
+
+    /**
+     * The cells that are part of the playing field, and those that are not in its first or last column.
+     * The latter are needed when moving cells sideways, so that they do not wrap around into the next line.
+     */
+    private static final long[] ALL_CELLS           = create();
+    private static final long[] NOT_FIRST_COLUMN    = create();
+    private static final long[] NOT_LAST_COLUMN     = create();
+
+    static {
+        for (int cellIndex = 0; cellIndex < CELLS; cellIndex++) {
+            set(ALL_CELLS, cellIndex);
+            if (xOf(cellIndex) != 0)
+                set(NOT_FIRST_COLUMN, cellIndex);
+            if (xOf(cellIndex) != Settings.PLAYING_FIELD_HORIZONTAL_SIZE - 1)
+                set(NOT_LAST_COLUMN, cellIndex);
+        }
+    }
+
+    public static long[] create() {
+        return new long[WORDS];
+    }
+
+    public static int cellIndex(int x, int y) {
+        return x + y * Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+    }
+
+    public static int xOf(int cellIndex) {
+        return cellIndex % Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+    }
+
+    public static int yOf(int cellIndex) {
+        return cellIndex / Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+    }
+
+    public static boolean get(long[] board, int cellIndex) {
+        return (board[cellIndex >>> 6] & (1L << cellIndex)) != 0;
+    }
+
+    public static void set(long[] board, int cellIndex) {
+        board[cellIndex >>> 6] |= 1L << cellIndex;
+    }
+
+    public static void clear(long[] board, int cellIndex) {
+        board[cellIndex >>> 6] &= ~(1L << cellIndex);
+    }
+
+    public static void clearAll(long[] board) {
+        for (int word = 0; word < board.length; word++)
+            board[word] = 0L;
+    }
+
+    public static void copy(long[] source, long[] target) {
+        System.arraycopy(source, 0, target, 0, WORDS);
+    }
+
+    public static void or(long[] target, long[] source) {
+        for (int word = 0; word < WORDS; word++)
+            target[word] |= source[word];
+    }
+
+    /**
+     * Fills target with every cell of the playing field that is not contained in source.
+     */
+    public static void complement(long[] source, long[] target) {
+        for (int word = 0; word < WORDS; word++)
+            target[word] = ~source[word] & ALL_CELLS[word];
+    }
+
+    /**
+     * Fills target with every cell that lies directly next to (but not diagonally from) a cell in source.
+     * Source and target must be different arrays.
+     */
+    public static void neighbours(long[] source, long[] target) {
+        int width = Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+        for (int word = 0; word < WORDS; word++) {
+            long hasRightNeighbour = shiftedDown(source, word, 1) & NOT_LAST_COLUMN[word];
+            long hasLeftNeighbour = shiftedUp(source, word, 1) & NOT_FIRST_COLUMN[word];
+            long hasLowerNeighbour = shiftedDown(source, word, width);
+            long hasUpperNeighbour = shiftedUp(source, word, width);
+            target[word] = (hasRightNeighbour | hasLeftNeighbour | hasLowerNeighbour | hasUpperNeighbour)
+                    & ALL_CELLS[word];
+        }
+    }
+
+    /**
+     * @return one word of the bit set, as if every cell had been moved down by the given number
+     * of cells, i.e. bit i of the result is cell (word * 64 + i + shift) of the original.
+     */
+    private static long shiftedDown(long[] board, int word, int shift) {
+        int source = word + (shift >>> 6);
+        int bits = shift & 63;
+        long low = source < WORDS ? board[source] >>> bits : 0L;
+        long high = (bits != 0 && source + 1 < WORDS) ? board[source + 1] << (64 - bits) : 0L;
+        return low | high;
+    }
+
+    /**
+     * @return one word of the bit set, as if every cell had been moved up by the given number
+     * of cells, i.e. bit i of the result is cell (word * 64 + i - shift) of the original.
+     */
+    private static long shiftedUp(long[] board, int word, int shift) {
+        int source = word - (shift >>> 6);
+        int bits = shift & 63;
+        long high = source >= 0 ? board[source] << bits : 0L;
+        long low = (bits != 0 && source - 1 >= 0) ? board[source - 1] >>> (64 - bits) : 0L;
+        return low | high;
+    }
+
+    /**
+     * @return the index of the n-th cell (counting from 0) contained in the given word.
+     */
+    public static int selectInWord(long word, int n) {
+        for (int i = 0; i < n; i++)
+            word &= word - 1;
+        return Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return whether the two sets have at least one cell in common.
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        for (int word = 0; word < WORDS; word++)
+            if ((a[word] & b[word]) != 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * @return whether every cell in subset is also contained in superset.
+     */
+    public static boolean isSubsetOf(long[] subset, long[] superset) {
+        for (int word = 0; word < WORDS; word++)
+            if ((subset[word] & ~superset[word]) != 0)
+                return false;
+        return true;
+    }
+
+    public static int count(long[] board) {
+        int sum = 0;
+        for (int word = 0; word < WORDS; word++)
+            sum += Long.bitCount(board[word]);
+        return sum;
+    }
+
+    /**
+     * @return the number of cells contained in a but not in b.
+     */
+    public static int countDifference(long[] a, long[] b) {
+        int sum = 0;
+        for (int word = 0; word < WORDS; word++)
+            sum += Long.bitCount(a[word] & ~b[word]);
+        return sum;
+    }
+}
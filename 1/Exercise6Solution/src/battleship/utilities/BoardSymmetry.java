@@ -0,0 +1,64 @@
+package battleship.utilities;
+
+import battleship.handling.Settings;
+
+/**
+ * This class lists the symmetries of the playing field: the ways to mirror or turn it so that
+ * it covers itself again. A rectangular field has four (leaving it as it is, mirroring it left
+ * to right, top to bottom, or both, which turns it half way); a square one has four more, which
+ * also swap rows and columns. Each symmetry is a numbered permutation of the cell indices
+ * (see BitBoard), looked up in tables built once, when this class is first used.
+ *
+ * Symmetry number 0 always leaves every cell where it is.
+ */
+public class BoardSymmetry {
+
+    public static final int     COUNT = Settings.PLAYING_FIELD_HORIZONTAL_SIZE == Settings.PLAYING_FIELD_VERTICAL_SIZE ? 8 : 4;
+
+    /**
+     * Where symmetry s takes cell c is stored at s * BitBoard.CELLS + c, and where it comes from
+     * in the same place of the second table.
+     */
+    private static final int[]  IMAGE       = new int[COUNT * BitBoard.CELLS];
+    private static final int[]  PRE_IMAGE   = new int[COUNT * BitBoard.CELLS];
+
+    static {
+        int width = Settings.PLAYING_FIELD_HORIZONTAL_SIZE;
+        int height = Settings.PLAYING_FIELD_VERTICAL_SIZE;
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            boolean mirrorX = (symmetry & 1) != 0;
+            boolean mirrorY = (symmetry & 2) != 0;
+            boolean swapAxes = (symmetry & 4) != 0;
+            for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++) {
+                int x = BitBoard.xOf(cellIndex);
+                int y = BitBoard.yOf(cellIndex);
+                if (swapAxes) {
+                    int swap = x;
+                    x = y;
+                    y = swap;
+                }
+                if (mirrorX)
+                    x = width - 1 - x;
+                if (mirrorY)
+                    y = height - 1 - y;
+                int image = BitBoard.cellIndex(x, y);
+                IMAGE[symmetry * BitBoard.CELLS + cellIndex] = image;
+                PRE_IMAGE[symmetry * BitBoard.CELLS + image] = cellIndex;
+            }
+        }
+    }
+
+    /**
+     * @return the cell that the given symmetry takes the given cell to.
+     */
+    public static int map(int symmetry, int cellIndex) {
+        return IMAGE[symmetry * BitBoard.CELLS + cellIndex];
+    }
+
+    /**
+     * @return the cell that the given symmetry takes to the given cell; the opposite of map().
+     */
+    public static int mapBack(int symmetry, int cellIndex) {
+        return PRE_IMAGE[symmetry * BitBoard.CELLS + cellIndex];
+    }
+}
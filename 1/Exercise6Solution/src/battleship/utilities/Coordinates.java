@@ -7,17 +7,52 @@ import battleship.handling.Settings;
  * but has no behaviour of its own. Other programming languages refer to 
  * such objects as "Struct". In accordance with the Java Code 
  * Conventions from 1999, we will leave this class' fields public.
+ * 
+ * Since coordinates never change, there is no need to create new ones 
+ * for every shot. Coordinates.of() hands out one shared instance per 
+ * cell of the playing field instead.
  */
 public class Coordinates {
 
     public final int	x;
     public final int	y;
 
+    private static final Coordinates[] SHARED_INSTANCES = new Coordinates[BitBoard.CELLS];
+
+    static {
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+            SHARED_INSTANCES[cellIndex] = new Coordinates(BitBoard.xOf(cellIndex), BitBoard.yOf(cellIndex));
+    }
+
     public Coordinates(int x, int y) {
         this.x = x;
         this.y = y;
     }
 
+    /**
+     * @return the shared instance for these coordinates; coordinates outside the 
+     * playing field are not shared, but created anew.
+     */
+    public static Coordinates of(int x, int y) {
+        if (!coordinateIsWithinPlayingField(x, y))
+            return new Coordinates(x, y);
+        return SHARED_INSTANCES[BitBoard.cellIndex(x, y)];
+    }
+
+    /**
+     * @return the shared instance for the cell with the given index (see BitBoard).
+     */
+    public static Coordinates ofCellIndex(int cellIndex) {
+        return SHARED_INSTANCES[cellIndex];
+    }
+
+    /**
+     * @return the index of the cell at these coordinates (see BitBoard).
+     */
+    public int cellIndex() {
+        return BitBoard.cellIndex(x, y);
+    }
+
     /**
      * @param input a string comprising only one letter and one digit, 
      * representing the horizontal and vertical coordinates of a tile.
@@ -55,7 +90,7 @@ public class Coordinates {
             throw new IncomprehensibleCoordinatesException(
                     "Coordinates " + input + " (" + x + "-" + y + ") are too far away!");
 
-        return new Coordinates(x, y);
+        return of(x, y);
     }
 
     public static boolean coordinateIsWithinPlayingField (int x, int y) {
@@ -0,0 +1,58 @@
+package battleship.utilities;
+
+import java.lang.reflect.Method;
+
+/**
+ * This class creates threads that are meant to spend most of their time waiting, like the ones
+ * behind a SequentialPlayer. Where the Java runtime offers virtual threads (Java 21 and later),
+ * those are used; they cost hardly more than the objects on their stack, so hundreds of thousands
+ * can wait at once. Otherwise, ordinary daemon threads with a small stack are used instead.
+ * Those are still operating system threads, each reserving its own stack, so only a few
+ * thousand of them can wait at once; hundreds of thousands need Java 21.
+ *
+ * Virtual threads are looked up by reflection, so that this still compiles and runs on older Javas.
+ */
+public class LightweightThreads {
+
+    private static final long   PLATFORM_THREAD_STACK_SIZE = 256 * 1024;
+
+    private static final Method OF_VIRTUAL;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        } catch (Exception e) {
+            // No virtual threads on this runtime.
+            ofVirtual = null;
+            unstarted = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        UNSTARTED = unstarted;
+    }
+
+    public static boolean areVirtual() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return a new thread that will run the given task; it has not been started yet.
+     */
+    public static Thread newThread(Runnable task, String name) {
+        if (OF_VIRTUAL != null) {
+            try {
+                Thread thread = (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), task);
+                thread.setName(name);
+                return thread;
+            } catch (Exception e) {
+                // Fall through to a platform thread.
+            }
+        }
+        Thread thread = new Thread(null, task, name, PLATFORM_THREAD_STACK_SIZE);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
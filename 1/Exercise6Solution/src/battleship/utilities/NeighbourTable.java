@@ -0,0 +1,108 @@
+package battleship.utilities;
+
+import java.util.Arrays;
+
+import battleship.handling.Settings;
+
+/**
+ * This class lists, for every cell of the playing field (see BitBoard), the cells directly
+ * next to it, so that nobody has to add deltas and check the borders of the playing field
+ * over and over again. The tables only depend on the Settings and are built once, when
+ * this class is first used.
+ *
+ * The neighbours of a cell can be looked up in three ways: by direction, where a missing
+ * neighbour is -1; as a list that only contains the neighbours that exist, in the order
+ * of the directions; and as a bit set.
+ */
+public class NeighbourTable {
+
+    public static final int LEFT        = 0;
+    public static final int UP          = 1;
+    public static final int RIGHT       = 2;
+    public static final int DOWN        = 3;
+    public static final int DIRECTIONS  = 4;
+
+    private static final int[] DELTA_X  = { -1, 0, 1, 0 };
+    private static final int[] DELTA_Y  = { 0, -1, 0, 1 };
+
+    /**
+     * The neighbour of cell c in direction d is stored at c * DIRECTIONS + d.
+     */
+    private static final int[] NEIGHBOUR_IN_DIRECTION   = new int[BitBoard.CELLS * DIRECTIONS];
+
+    /**
+     * The neighbours of cell c that exist are stored from FIRST_NEIGHBOUR[c]
+     * up to (but not including) FIRST_NEIGHBOUR[c + 1].
+     */
+    private static final int[] NEIGHBOURS;
+    private static final int[] FIRST_NEIGHBOUR          = new int[BitBoard.CELLS + 1];
+
+    /**
+     * The neighbours of cell c as a bit set, stored from c * BitBoard.WORDS on.
+     */
+    private static final long[] NEIGHBOUR_MASKS         = new long[BitBoard.CELLS * BitBoard.WORDS];
+
+    static {
+        Arrays.fill(NEIGHBOUR_IN_DIRECTION, -1);
+        int[] neighbours = new int[BitBoard.CELLS * DIRECTIONS];
+        int count = 0;
+        for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++) {
+            FIRST_NEIGHBOUR[cellIndex] = count;
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int x = BitBoard.xOf(cellIndex) + DELTA_X[direction];
+                int y = BitBoard.yOf(cellIndex) + DELTA_Y[direction];
+                if (x < 0 || x >= Settings.PLAYING_FIELD_HORIZONTAL_SIZE
+                        || y < 0 || y >= Settings.PLAYING_FIELD_VERTICAL_SIZE)
+                    continue;
+                int neighbour = BitBoard.cellIndex(x, y);
+                NEIGHBOUR_IN_DIRECTION[cellIndex * DIRECTIONS + direction] = neighbour;
+                neighbours[count++] = neighbour;
+                NEIGHBOUR_MASKS[cellIndex * BitBoard.WORDS + (neighbour >>> 6)] |= 1L << neighbour;
+            }
+        }
+        FIRST_NEIGHBOUR[BitBoard.CELLS] = count;
+        NEIGHBOURS = Arrays.copyOf(neighbours, count);
+    }
+
+    /**
+     * @return the cell next to the given one in the given direction, or -1 if that would be
+     * outside the playing field.
+     */
+    public static int inDirection(int cellIndex, int direction) {
+        return NEIGHBOUR_IN_DIRECTION[cellIndex * DIRECTIONS + direction];
+    }
+
+    public static int opposite(int direction) {
+        return direction ^ 2;
+    }
+
+    /**
+     * @return how many neighbours the given cell has: two in a corner, three along the border, four otherwise.
+     */
+    public static int count(int cellIndex) {
+        return FIRST_NEIGHBOUR[cellIndex + 1] - FIRST_NEIGHBOUR[cellIndex];
+    }
+
+    /**
+     * @return the n-th neighbour (counting from 0) of the given cell, for n below count(cellIndex).
+     */
+    public static int get(int cellIndex, int n) {
+        return NEIGHBOURS[FIRST_NEIGHBOUR[cellIndex] + n];
+    }
+
+    /**
+     * Adds the neighbours of the given cell to the set.
+     */
+    public static void addNeighboursTo(int cellIndex, long[] target) {
+        addNeighboursTo(cellIndex, target, 0);
+    }
+
+    /**
+     * Same as above, for a bit set stored in a larger array, starting at the given offset.
+     */
+    public static void addNeighboursTo(int cellIndex, long[] target, int targetOffset) {
+        int offset = cellIndex * BitBoard.WORDS;
+        for (int word = 0; word < BitBoard.WORDS; word++)
+            target[targetOffset + word] |= NEIGHBOUR_MASKS[offset + word];
+    }
+}
@@ -0,0 +1,126 @@
+package battleship.utilities;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A transposition table remembers decisions and evaluations by the hash of the position they
+ * were made in (see Zobrist), so that a position that comes up again, later in the game or in
+ * another game, need not be worked out again.
+ *
+ * The table has a fixed number of slots, grouped in pairs. A position can only be stored in the
+ * two slots of the pair its hash picks; if both are taken by other positions, the one that took
+ * less work to work out is evicted.
+ *
+ * A table may be shared by any number of threads without locking. Every slot holds an immutable
+ * entry, which is swapped in as a whole, so a thread never sees half of an entry. Two threads
+ * storing at the same time may evict each other's entries, which only costs some work later.
+ */
+public class TranspositionTable {
+
+    /**
+     * What was remembered about one position.
+     */
+    public static final class Entry {
+
+        private final long      hash;
+        private final int       cellIndex;
+        private final double    value;
+        private final int       work;
+
+        Entry(long hash, int cellIndex, double value, int work) {
+            this.hash = hash;
+            this.cellIndex = cellIndex;
+            this.value = value;
+            this.work = work;
+        }
+
+        public long hash() {
+            return hash;
+        }
+
+        /**
+         * @return the cell chosen in the position, or -1 if only a value was stored.
+         */
+        public int cellIndex() {
+            return cellIndex;
+        }
+
+        public double value() {
+            return value;
+        }
+
+        public int work() {
+            return work;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry>   slots;
+    private final int                           mask;
+
+    /**
+     * @param capacity the number of slots, which is rounded up to a power of two, and at least 2.
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("A transposition table needs between 1 and 2^30 slots, not " + capacity + ".");
+        int slotCount = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<Entry>(slotCount);
+        this.mask = slotCount - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return what was remembered about the position with the given hash, or null.
+     */
+    public Entry get(long hash) {
+        int first = firstSlot(hash);
+        Entry entry = slots.get(first);
+        if (entry != null && entry.hash == hash)
+            return entry;
+        entry = slots.get(first + 1);
+        if (entry != null && entry.hash == hash)
+            return entry;
+        return null;
+    }
+
+    /**
+     * Remembers a decision or an evaluation for the position with the given hash, replacing
+     * whatever was stored for it before.
+     * @param work how much it took to work out, e.g. the number of positions searched; the
+     * entries that took least are evicted first.
+     */
+    public void put(long hash, int cellIndex, double value, int work) {
+        int first = firstSlot(hash);
+        Entry entry = new Entry(hash, cellIndex, value, work);
+        Entry one = slots.get(first);
+        Entry other = slots.get(first + 1);
+        int slot;
+        if (one != null && one.hash == hash)
+            slot = first;
+        else if (other != null && other.hash == hash)
+            slot = first + 1;
+        else if (one == null)
+            slot = first;
+        else if (other == null)
+            slot = first + 1;
+        else
+            slot = other.work < one.work ? first + 1 : first;
+        slots.set(slot, entry);
+    }
+
+    /**
+     * Forgets every entry.
+     */
+    public void clear() {
+        for (int slot = 0; slot <= mask; slot++)
+            slots.set(slot, null);
+    }
+
+    private int firstSlot(long hash) {
+        // The low bits of a Zobrist hash are as good as any; fold in the high ones anyway.
+        return (int) (hash ^ (hash >>> 32)) & mask & ~1;
+    }
+}
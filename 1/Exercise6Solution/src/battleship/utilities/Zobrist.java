@@ -0,0 +1,66 @@
+package battleship.utilities;
+
+/**
+ * Zobrist hashing gives every (cell, state) pair a fixed random 64-bit key; a board's hash is
+ * the exclusive or of the keys of its cells that are not in the empty state. Changing one cell
+ * then only takes two exclusive ors, one to take out its old key and one to put in the new one,
+ * and two different boards hardly ever share a hash.
+ *
+ * So that boards that are mirror images of each other can be recognised as such, the keys are
+ * also available as seen through every BoardSymmetry: key(state, symmetry, c) is the key of the
+ * cell that the symmetry takes c to. A board's hash under a symmetry is the hash of its image.
+ *
+ * Counts can be hashed the same way: the key of the n-th item of some kind is put in when the
+ * count goes up to n, and taken out again when it goes back down.
+ *
+ * The keys are the same on every run, so hashes can be compared between games and threads.
+ */
+public class Zobrist {
+
+    /**
+     * The number of states a cell can have, not counting the empty one, which has no key.
+     */
+    public static final int     CELL_STATES = 3;
+
+    private static final long   SEED        = 0x5DEECE66DL;
+
+    /**
+     * The key of state s (counting from 1) under symmetry y, for cell c, is stored at
+     * ((s - 1) * BoardSymmetry.COUNT + y) * BitBoard.CELLS + c.
+     */
+    private static final long[] CELL_KEYS   = new long[CELL_STATES * BoardSymmetry.COUNT * BitBoard.CELLS];
+
+    static {
+        for (int state = 1; state <= CELL_STATES; state++)
+            for (int symmetry = 0; symmetry < BoardSymmetry.COUNT; symmetry++)
+                for (int cellIndex = 0; cellIndex < BitBoard.CELLS; cellIndex++)
+                    CELL_KEYS[((state - 1) * BoardSymmetry.COUNT + symmetry) * BitBoard.CELLS + cellIndex] =
+                            mix(SEED + (state - 1) * BitBoard.CELLS + BoardSymmetry.map(symmetry, cellIndex));
+    }
+
+    /**
+     * @return the key of the given non-empty state (counting from 1) of the cell that the given
+     * symmetry takes the given cell to.
+     */
+    public static long cellKey(int state, int symmetry, int cellIndex) {
+        return CELL_KEYS[((state - 1) * BoardSymmetry.COUNT + symmetry) * BitBoard.CELLS + cellIndex];
+    }
+
+    /**
+     * @return the key of the n-th (counting from 1) item of the given kind, e.g. the n-th sunk
+     * ship of a given length. Kinds are numbers of the caller's choosing, below 2^16.
+     */
+    public static long countKey(int kind, int n) {
+        return mix(~SEED ^ ((long) kind << 32 | n));
+    }
+
+    /**
+     * Scrambles the bits of a number, so that close numbers give unrelated keys (the finaliser
+     * of SplitMix64).
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
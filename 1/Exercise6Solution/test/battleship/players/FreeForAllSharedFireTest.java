@@ -0,0 +1,126 @@
+package battleship.players;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import battleship.handling.FreeForAll;
+import battleship.handling.Settings;
+import battleship.ships.Ship;
+import battleship.tiles.ShipTile;
+import battleship.utilities.BitBoard;
+import battleship.utilities.Coordinates;
+
+/**
+ * Checks that a ship sunk in a free-for-all is reported sunk only once to each of two players
+ * firing at it: once to the player who sinks it, and once to the other, whose shots at it before
+ * and after count as a hit and as repeats. There is no test framework in this project, so this
+ * is a program of its own, which throws an AssertionError if anything is wrong:
+ *
+ * javac -d out $(find src test -name '*.java')
+ * java -cp out battleship.players.FreeForAllSharedFireTest
+ *
+ * It lives in the players package to read the observations each player has made.
+ */
+public class FreeForAllSharedFireTest {
+
+    /**
+     * Fires at the given cells of the given target, in order, and counts the ships it is told
+     * it has sunk.
+     */
+    private static class ScriptedPlayer extends ComputerOpponent {
+
+        private final List<Integer> cells = new ArrayList<Integer>();
+        private Player target;
+        private int sinkings = 0;
+
+        ScriptedPlayer(String name) {
+            super(name);
+        }
+
+        void fireAt(Player target, int... cells) {
+            this.target = target;
+            for (int cellIndex : cells)
+                this.cells.add(cellIndex);
+        }
+
+        @Override
+        public Player chooseTarget(Opponents opponents) {
+            return target;
+        }
+
+        @Override
+        public Coordinates promptToFireShot() throws Exception {
+            return Coordinates.ofCellIndex(cells.remove(0));
+        }
+
+        @Override
+        public void youHaveSunkAnEnemyShip(Coordinates lastHit, Ship ship) {
+            super.youHaveSunkAnEnemyShip(lastHit, ship);
+            sinkings++;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ScriptedPlayer first = new ScriptedPlayer("First");
+        ScriptedPlayer second = new ScriptedPlayer("Second");
+        ComputerOpponent target = new ComputerOpponent("Target");
+        SplittableRandom random = new SplittableRandom(42);
+        for (Player player : Arrays.asList(first, second, target)) {
+            player.setRandom(random.split());
+            player.placeShips();
+        }
+
+        Ship ship = null;
+        for (Ship candidate : target.getFleet().getShips())
+            if (ship == null || candidate.length() > ship.length())
+                ship = candidate;
+        int[] s = new int[ship.length()];
+        for (int i = 0; i < s.length; i++) {
+            ShipTile tile = ship.getTiles().get(i);
+            s[i] = BitBoard.cellIndex(tile.getHorizontalIndex(), tile.getVerticalIndex());
+        }
+        int[] water = new int[4];
+        for (int cellIndex = 0, found = 0; found < water.length; cellIndex++)
+            if (target.getFleet().getShipAtCoordinates(Coordinates.ofCellIndex(cellIndex)) == null)
+                water[found++] = cellIndex;
+
+        // The second player hits the ship's last cell first; the first player then sinks it with
+        // the shot at the second last one, and fires at the last one once more.
+        int[] firstShots = new int[s.length + water.length];
+        System.arraycopy(s, 0, firstShots, 0, s.length);
+        System.arraycopy(water, 0, firstShots, s.length, water.length);
+        first.fireAt(target, firstShots);
+        // Once it has been sunk, the second player fires at all of its cells.
+        int[] secondShots = new int[1 + 3 + s.length];
+        secondShots[0] = s[s.length - 1];
+        System.arraycopy(water, 0, secondShots, 1, 3);
+        System.arraycopy(s, 0, secondShots, 4, s.length);
+        second.fireAt(target, secondShots);
+
+        FreeForAll game = new FreeForAll(Arrays.asList(first, second, target));
+        while (!second.cells.isEmpty())
+            game.step();
+
+        for (ScriptedPlayer player : Arrays.asList(first, second)) {
+            check(player.sinkings == 1, player + " has been told " + player.sinkings
+                    + " times that they have sunk the ship.");
+            int presumed = Settings.defaultStartingFleetStrength() - s.length;
+            check(player.enemyStrenghPresumedToRemain == presumed, player + " presumes "
+                    + player.enemyStrenghPresumedToRemain + " enemy tiles to remain, not " + presumed + ".");
+            for (int cellIndex : s) {
+                check(player.getResultObservationAtCell(cellIndex) == ResultObservation.HIT,
+                        player + " has not seen a hit at cell " + cellIndex + ".");
+                check(player.observations.isSunk(cellIndex),
+                        player + " has not seen the ship at cell " + cellIndex + " sink.");
+            }
+        }
+        System.out.println("OK");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}